@@ -0,0 +1,256 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Suite de non-régression de bout en bout : génère un jeu synthétique (WorkloadGenerator), exécute
+ * clean, nodes et stats en mode local dans la JVM courante, et mesure pour chaque étape le temps,
+ * le débit (lignes d'entrée par seconde), le pic de heap et une somme de contrôle des sorties.
+ *
+ * Les résultats sont écrits dans <workdir>/_bench et comparés à un fichier de référence :
+ * somme de contrôle différente ou étape plus lente que la tolérance = régression.
+ */
+public class Benchmark {
+
+    public static final String RESULT_FILE = "_bench";
+    public static final double DEFAULT_TOLERANCE = 0.25;
+    // En dessous, le temps d'une étape est dominé par le démarrage du job local : pas comparé
+    private static final long MIN_COMPARED_MS = 2000;
+
+    private static final String[] STAGES = {"clean", "nodes", "stats"};
+
+    private Benchmark() {}
+
+    /**
+     * Exécute le pipeline sur <workdir>/raw.json (généré selon args, ou --input=fichier existant).
+     *
+     * @param baseline fichier de référence à comparer (null = aucune comparaison)
+     * @param saveBaseline écrit les résultats dans baseline au lieu de comparer
+     * @return faux si un job échoue ou si une régression est détectée
+     */
+    public static boolean run(String workdir, String[] args, int from, int size, String input,
+                              String baseline, boolean saveBaseline, double tolerance) throws Exception {
+        Configuration conf = new Configuration();
+        // Le pipeline crée ses propres Configuration : on vérifie qu'elles pointent bien en local
+        String framework = conf.get("mapreduce.framework.name", "local");
+        String defaultFs = conf.get("fs.defaultFS", "file:///");
+        if (!framework.equals("local") || !defaultFs.startsWith("file:")) {
+            System.err.println("Erreur: bench s'exécute en mode local (framework=" + framework + ", fs=" + defaultFs
+                    + "). Lancer avec java -cp plutôt que hadoop jar.");
+            return false;
+        }
+
+        Path work = new Path(workdir);
+        FileSystem fs = work.getFileSystem(conf);
+        String clean = new Path(work, "clean").toString();
+        String nodes = new Path(work, "nodes").toString();
+        String stats = new Path(work, "stats").toString();
+        for (String dir : new String[]{clean, nodes, stats}) {
+            fs.delete(new Path(dir), true);
+        }
+
+        Properties results = new Properties();
+        results.setProperty("size", String.valueOf(size));
+
+        String raw = input;
+        long rawLines;
+        if (raw == null) {
+            raw = new Path(work, "raw.json").toString();
+            WorkloadGenerator generator = WorkloadGenerator.fromArgs(args, from);
+            long start = System.currentTimeMillis();
+            generator.generate(raw, conf);
+            generator.printReport();
+            rawLines = generator.lines;
+            results.setProperty("lines", String.valueOf(generator.lines));
+            results.setProperty("seed", String.valueOf(generator.seed));
+            results.setProperty("dataset", "generate:" + generator.describe());
+            results.setProperty("generate.ms", String.valueOf(System.currentTimeMillis() - start));
+        } else {
+            long[] rawSum = checksum(fs, new Path(raw));
+            rawLines = rawSum[0];
+            results.setProperty("input", raw);
+            results.setProperty("lines", String.valueOf(rawLines));
+            // Chemin et contenu : un fichier modifié au même chemin n'est plus le même jeu
+            results.setProperty("dataset", "input:" + raw + ";lines=" + rawLines + ";checksum=" + Long.toHexString(rawSum[1]));
+        }
+
+        // --- clean ---
+        resetPeaks();
+        long start = System.currentTimeMillis();
+        boolean success = DataCleaning.runJob(new String[]{raw, clean}, 1.0);
+        record(results, "clean", start, rawLines, fs, new Path(clean));
+        if (!success) return false;
+
+        // --- nodes ---
+        Configuration nodesConf = new Configuration();
+        nodesConf.setInt(NodesAndEdges.ARCHETYPE_SIZE_KEY, size);
+        resetPeaks();
+        start = System.currentTimeMillis();
+        success = NodesAndEdges.runJob(new String[]{clean, nodes}, nodesConf);
+        record(results, "nodes", start, DataCleaning.getLastOutputCount(), fs, new Path(nodes));
+        if (!success) return false;
+
+        // --- stats ---
+        Properties summary = NodesAndEdges.readSummary(new Path(nodes), conf);
+        long nAll = Long.parseLong(summary.getProperty("nAll", "0"));
+        long edgeLines = checksum(fs, new Path(nodes, "edges-r-*"))[0];
+        resetPeaks();
+        start = System.currentTimeMillis();
+        success = Stats.runJob(new Path(nodes, "nodes-r-*").toString(), new Path(nodes, "edges-r-*").toString(),
+                stats, nAll, false, 0, 1.0);
+        record(results, "stats", start, edgeLines, fs, new Path(stats));
+        if (!success) return false;
+
+        try (OutputStream out = fs.create(new Path(work, RESULT_FILE), true)) {
+            results.store(out, "Benchmark ProjetPLE");
+        }
+
+        if (baseline == null) {
+            printResults(results, null, tolerance);
+            return true;
+        }
+
+        Path baselinePath = new Path(baseline);
+        FileSystem baselineFs = baselinePath.getFileSystem(conf);
+        if (saveBaseline) {
+            try (OutputStream out = baselineFs.create(baselinePath, true)) {
+                results.store(out, "Référence Benchmark ProjetPLE");
+            }
+            printResults(results, null, tolerance);
+            System.out.println(">>> Référence enregistrée : " + baseline);
+            return true;
+        }
+
+        Properties reference = new Properties();
+        try (InputStream in = baselineFs.open(baselinePath)) {
+            reference.load(in);
+        }
+        return printResults(results, reference, tolerance);
+    }
+
+    private static void record(Properties results, String stage, long start, long inputLines,
+                               FileSystem fs, Path output) throws IOException {
+        long ms = Math.max(1, System.currentTimeMillis() - start);
+        long peakHeap = peakHeapBytes();
+        long[] sum = checksum(fs, output);
+        results.setProperty(stage + ".ms", String.valueOf(ms));
+        results.setProperty(stage + ".inputLines", String.valueOf(inputLines));
+        results.setProperty(stage + ".linesPerSec", String.valueOf(inputLines * 1000 / ms));
+        results.setProperty(stage + ".peakHeapMb", String.valueOf(peakHeap >> 20));
+        results.setProperty(stage + ".outputLines", String.valueOf(sum[0]));
+        results.setProperty(stage + ".checksum", Long.toHexString(sum[1]));
+    }
+
+    /**
+     * Somme de contrôle {lignes, somme des CRC32 des lignes} de tous les fichiers visibles d'un
+     * chemin (fichier, dossier parcouru récursivement ou motif glob). L'addition rend le résultat
+     * indépendant de l'ordre des lignes et du découpage en part-r-*, qui varient d'une exécution à l'autre.
+     */
+    static long[] checksum(FileSystem fs, Path path) throws IOException {
+        long[] sum = new long[2];
+        FileStatus[] matches = fs.globStatus(path);
+        if (matches == null) return sum;
+        for (FileStatus status : matches) {
+            addChecksum(fs, status, sum);
+        }
+        return sum;
+    }
+
+    private static void addChecksum(FileSystem fs, FileStatus status, long[] sum) throws IOException {
+        String name = status.getPath().getName();
+        if (name.startsWith("_") || name.startsWith(".")) return;
+        if (status.isDirectory()) {
+            for (FileStatus child : fs.listStatus(status.getPath())) {
+                addChecksum(fs, child, sum);
+            }
+            return;
+        }
+        CRC32 crc = new CRC32();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(status.getPath()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                crc.reset();
+                crc.update(line.getBytes(StandardCharsets.UTF_8));
+                sum[0]++;
+                sum[1] += crc.getValue();
+            }
+        }
+    }
+
+    private static void resetPeaks() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    /**
+     * Affiche le tableau des étapes et, si une référence est fournie, les écarts.
+     * Retourne faux en cas de régression (sortie différente ou temps au-delà de la tolérance).
+     */
+    private static boolean printResults(Properties results, Properties reference, double tolerance) {
+        boolean ok = true;
+        // Temps et sommes de contrôle ne sont comparables que pour le même jeu de données (tous les
+        // paramètres de génération, ou même fichier d'entrée) et la même taille d'archétype
+        boolean sameData = reference != null
+                && results.getProperty("dataset", "").equals(reference.getProperty("dataset"))
+                && results.getProperty("size", "").equals(reference.getProperty("size"));
+
+        System.out.println("\n-------------------------------------------");
+        System.out.println("  RAPPORT BENCHMARK");
+        System.out.println("-------------------------------------------");
+        System.out.println("  Lignes brutes        : " + results.getProperty("lines") + " (size=" + results.getProperty("size") + ")");
+        for (String stage : STAGES) {
+            long ms = Long.parseLong(results.getProperty(stage + ".ms"));
+            System.out.println(String.format("  %-6s %8d ms  %10s lignes/s  heap %5s Mo  sortie %s:%s",
+                    stage, ms, results.getProperty(stage + ".linesPerSec"), results.getProperty(stage + ".peakHeapMb"),
+                    results.getProperty(stage + ".outputLines"), results.getProperty(stage + ".checksum")));
+            if (!sameData || !reference.containsKey(stage + ".ms")) continue;
+
+            long refMs = Long.parseLong(reference.getProperty(stage + ".ms"));
+            double ratio = (double) ms / Math.max(1, refMs);
+            boolean slower = ms >= MIN_COMPARED_MS && ratio > 1 + tolerance;
+            System.out.println(String.format("         référence %8d ms  (x%.2f)%s", refMs, ratio,
+                    slower ? "  <-- RÉGRESSION" : "").replace(',', '.'));
+            if (slower) ok = false;
+
+            String refSum = reference.getProperty(stage + ".outputLines") + ":" + reference.getProperty(stage + ".checksum");
+            String sum = results.getProperty(stage + ".outputLines") + ":" + results.getProperty(stage + ".checksum");
+            if (!sum.equals(refSum)) {
+                System.out.println("         sortie différente de la référence (" + refSum + ")  <-- RÉGRESSION");
+                ok = false;
+            }
+        }
+        if (reference != null) {
+            if (!sameData) {
+                System.out.println("  (jeu de données différent de la référence : rien n'est comparé)");
+                System.out.println("  Référence            : " + reference.getProperty("dataset", "?") + " size=" + reference.getProperty("size"));
+            }
+            System.out.println("  Tolérance            : +" + Math.round(tolerance * 100) + "%");
+            System.out.println("  Résultat             : " + (ok ? "OK" : "RÉGRESSION"));
+        }
+        System.out.println("-------------------------------------------\n");
+        return ok;
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+/**
+ * Dictionnaire des cartes : chaque carte est codée sur 2 caractères hexa, il y a donc au plus
+ * 256 cartes distinctes. On les convertit en entiers denses (0..255) pour pouvoir indexer
+ * des tableaux au lieu de manipuler des chaînes.
+ *
+ * Un archétype de k cartes (triées, toutes différentes) est numéroté avec le système
+ * combinatoire : rang = C(c1,1) + C(c2,2) + ... + C(ck,k) avec c1 < c2 < ... < ck.
+ * Les rangs couvrent exactement [0, C(256,k)[ sans trou.
+ */
+public class CardDictionary {
+
+    public static final int CARD_COUNT = 256;
+    public static final int MAX_CARDS = 8;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // BINOMIAL[n][k] = C(n, k) pour n <= 256 et k <= 8 (tient largement dans un long)
+    private static final long[][] BINOMIAL = new long[CARD_COUNT + 1][MAX_CARDS + 1];
+
+    static {
+        for (int n = 0; n <= CARD_COUNT; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= MAX_CARDS && k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private CardDictionary() {}
+
+    /**
+     * Identifiant dense d'une carte ("0a" -> 10).
+     */
+    public static int cardId(String hex) {
+        return Integer.parseInt(hex, 16);
+    }
+
+    /**
+     * Représentation hexa d'une carte (10 -> "0a"), toujours en minuscules.
+     */
+    public static String cardHex(int id) {
+        return new String(new char[]{HEX[(id >> 4) & 0xf], HEX[id & 0xf]});
+    }
+
+    /**
+     * Convertit les cartes d'un deck en identifiants triés.
+     * Retourne null si une carte apparaît deux fois (rang combinatoire non défini).
+     */
+    public static int[] sortedIds(String[] cards) {
+        int[] ids = new int[cards.length];
+        for (int i = 0; i < cards.length; i++) {
+            ids[i] = cardId(cards[i]);
+        }
+        Arrays.sort(ids);
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] == ids[i - 1]) return null;
+        }
+        return ids;
+    }
+
+    /**
+     * C(n, k), 0 si k > n.
+     */
+    public static long binomial(int n, int k) {
+        if (k < 0 || k > n) return 0;
+        return BINOMIAL[n][k];
+    }
+
+    /**
+     * Nombre d'archétypes possibles de taille k.
+     */
+    public static long universeSize(int k) {
+        return binomial(CARD_COUNT, k);
+    }
+
+    /**
+     * Rang combinatoire d'une combinaison triée strictement croissante.
+     */
+    public static long rank(int[] sortedIds) {
+        long rank = 0;
+        for (int i = 0; i < sortedIds.length; i++) {
+            rank += binomial(sortedIds[i], i + 1);
+        }
+        return rank;
+    }
+
+    /**
+     * Inverse de rank() : retrouve les k cartes triées à partir du rang.
+     */
+    public static int[] unrank(long rank, int k) {
+        int[] ids = new int[k];
+        int c = CARD_COUNT - 1;
+        for (int i = k; i >= 1; i--) {
+            // plus grand c tel que C(c, i) <= rang restant
+            while (binomial(c, i) > rank) {
+                c--;
+            }
+            ids[i - 1] = c;
+            rank -= binomial(c, i);
+            c--;
+        }
+        return ids;
+    }
+
+    /**
+     * Archétype (cartes hexa concaténées et triées) correspondant à un rang.
+     */
+    public static String archetype(long rank, int k) {
+        int[] ids = unrank(rank, k);
+        StringBuilder sb = new StringBuilder(k * 2);
+        for (int id : ids) {
+            sb.append(cardHex(id));
+        }
+        return sb.toString();
+    }
+}
@@ -3,6 +3,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Properties;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -12,8 +13,7 @@ import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Counters;
-import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.JobCounter;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 
@@ -30,15 +30,23 @@ public class DataCleaning {
 
   // --- COMPTEURS PERSONNALISÉS ---
   public enum DataCounters {
-    TOTAL_INPUT, VALID_GAMES, INVALID_JSON, INVALID_DATA, DUPLICATES, OUTPUT_LINES
+    TOTAL_INPUT, VALID_GAMES, INVALID_JSON, INVALID_DATA, DUPLICATES, OUTPUT_LINES, SAMPLED_OUT
   }
 
   // --- MAPPER ---
   public static class CleaningMapper extends Mapper<Object, Text, Text, Text> {
-    private static final Gson gson = new Gson();
+    // Par instance : une instance par thread en mode --map-threads
+    private final Gson gson = new Gson();
+    private final MapThreads.CounterBatch counters = new MapThreads.CounterBatch();
+    private double sampleRate;
+
+    @Override
+    protected void setup(Context context) {
+      sampleRate = context.getConfiguration().getDouble(Sampling.SAMPLE_RATE_KEY, 1.0);
+    }
 
     public void map(Object key, Text value, Context context) throws IOException, InterruptedException {
-      context.getCounter(DataCounters.TOTAL_INPUT).increment(1);
+      counters.increment(DataCounters.TOTAL_INPUT);
       String line = value.toString();
       Game game;
 
@@ -46,12 +54,12 @@ public class DataCleaning {
       try {
         game = gson.fromJson(line, Game.class);
       } catch (JsonSyntaxException e) {
-        context.getCounter(DataCounters.INVALID_JSON).increment(1);
+        counters.increment(DataCounters.INVALID_JSON);
         return;
       }
 
       if (game == null || !game.isValid()) {
-        context.getCounter(DataCounters.INVALID_DATA).increment(1);
+        counters.increment(DataCounters.INVALID_DATA);
         return;
       }
 
@@ -59,13 +67,24 @@ public class DataCleaning {
       String pairKey = game.getPlayerPairKey();
       
       if (pairKey == null) {
-        context.getCounter(DataCounters.INVALID_DATA).increment(1);
+        counters.increment(DataCounters.INVALID_DATA);
+        return;
+      }
+
+      // Échantillonnage par paire de joueurs : les doublons restent ensemble
+      if (!Sampling.keep(pairKey, sampleRate)) {
+        counters.increment(DataCounters.SAMPLED_OUT);
         return;
       }
 
-      context.getCounter(DataCounters.VALID_GAMES).increment(1);
+      counters.increment(DataCounters.VALID_GAMES);
       context.write(new Text(pairKey), new Text(line));
     }
+
+    @Override
+    protected void cleanup(Context context) {
+      counters.flush(context);
+    }
   }
 
   // --- REDUCER ---
@@ -120,11 +139,30 @@ public class DataCleaning {
 
   // --- Main Job Runner ---
   public static boolean runJob(String[] args) throws Exception {
+      return runJob(args, 1.0);
+  }
+
+  /**
+   * @param sampleRate fraction des paires de joueurs gardées (1.0 = tout), notée dans le _summary de sortie
+   */
+  public static boolean runJob(String[] args, double sampleRate) throws Exception {
       Configuration conf = new Configuration();
+      conf.setDouble(Sampling.SAMPLE_RATE_KEY, sampleRate);
+      return runJob(args, conf);
+  }
+
+  /**
+   * Lance le job avec une configuration déjà remplie (Sampling.SAMPLE_RATE_KEY, InputFiles.COMBINE_SPLIT_MB_KEY,
+   * MapThreads.THREADS_KEY).
+   * args[0] peut contenir plusieurs chemins séparés par des virgules et des motifs glob.
+   */
+  public static boolean runJob(String[] args, Configuration conf) throws Exception {
+      double sampleRate = conf.getDouble(Sampling.SAMPLE_RATE_KEY, 1.0);
       Job job = Job.getInstance(conf, "PLE Clash Royale - Data Cleaning");
       
       job.setJarByClass(DataCleaning.class);
-      job.setMapperClass(CleaningMapper.class);
+      // Un ou plusieurs threads de parsing par tâche (MapThreads.THREADS_KEY)
+      MapThreads.configure(job, CleaningMapper.class);
       job.setReducerClass(CleaningReducer.class);
       
       job.setMapOutputKeyClass(Text.class);
@@ -132,10 +170,10 @@ public class DataCleaning {
       job.setOutputKeyClass(Text.class);
       job.setOutputValueClass(NullWritable.class);
       
-      job.setInputFormatClass(TextInputFormat.class);
       job.setOutputFormatClass(TextOutputFormat.class);
       
-      FileInputFormat.addInputPath(job, new Path(args[0]));
+      // Un ou plusieurs chemins (virgules, globs), splits combinés si input.combine.split.mb
+      InputFiles.configure(job, args[0]);
       FileOutputFormat.setOutputPath(job, new Path(args[1]));
       
       boolean success = job.waitForCompletion(true);
@@ -143,13 +181,34 @@ public class DataCleaning {
       if (success) {
         Counters c = job.getCounters();
         lastOutputCount = c.findCounter(DataCounters.OUTPUT_LINES).getValue();
+
+        // Le taux d'échantillonnage suit les données : nodes le relit pour remettre à l'échelle
+        Properties summary = new Properties();
+        summary.setProperty("sample", String.valueOf(sampleRate));
+        summary.setProperty("outputLines", String.valueOf(lastOutputCount));
+        NodesAndEdges.writeSummary(new Path(args[1]), conf, summary);
+
         System.out.println("\n-------------------------------------------");
         System.out.println("  RAPPORT DE NETTOYAGE");
         System.out.println("-------------------------------------------");
+        long mapTasks = c.findCounter(JobCounter.TOTAL_LAUNCHED_MAPS).getValue();
+        // Non renseigné par le LocalJobRunner
+        if (mapTasks > 0) {
+          System.out.println("  Tâches map     : " + mapTasks
+                             + (conf.getLong(InputFiles.COMBINE_SPLIT_MB_KEY, 0) > 0
+                                ? " (splits combinés de " + conf.getLong(InputFiles.COMBINE_SPLIT_MB_KEY, 0) + " Mo max)" : ""));
+        }
+        if (conf.getInt(MapThreads.THREADS_KEY, 1) > 1) {
+          System.out.println("  Threads map    : " + conf.getInt(MapThreads.THREADS_KEY, 1) + " par tâche");
+        }
         System.out.println("  Total lu       : " + c.findCounter(DataCounters.TOTAL_INPUT).getValue());
         System.out.println("  JSON invalides : " + c.findCounter(DataCounters.INVALID_JSON).getValue());
         System.out.println("  Data invalides : " + c.findCounter(DataCounters.INVALID_DATA).getValue());
         System.out.println("  Doublons suppr : " + c.findCounter(DataCounters.DUPLICATES).getValue());
+        if (sampleRate < 1.0) {
+          System.out.println("  Hors échantil. : " + c.findCounter(DataCounters.SAMPLED_OUT).getValue()
+                             + " (taux " + sampleRate + ")");
+        }
         System.out.println("  Total écrit    : " + c.findCounter(DataCounters.OUTPUT_LINES).getValue());
         System.out.println("-------------------------------------------\n");
       }
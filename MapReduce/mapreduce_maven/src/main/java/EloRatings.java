@@ -0,0 +1,420 @@
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.partition.InputSampler;
+import org.apache.hadoop.mapreduce.lib.partition.TotalOrderPartitioner;
+
+import com.google.gson.Gson;
+
+/**
+ * Classements Elo des joueurs et des archétypes (deck complet) calculés dans l'ordre chronologique.
+ *
+ * 1. Tri global des parties nettoyées par date : clé = timestamp lue par TimestampInputFormat,
+ *    TotalOrderPartitioner avec des bornes échantillonnées (InputSampler) : la partition i ne contient
+ *    que des parties antérieures à celles de la partition i+1, part-r-* se lisent donc bout à bout.
+ * 2. Le driver relit les partitions dans l'ordre et met à jour les ratings en une seule passe.
+ *
+ * Force d'une équipe = rating du joueur + bonus du deck : le bonus d'un deck n'augmente que s'il gagne
+ * plus que ce que le niveau de ses joueurs laisse prévoir (force de l'archétype corrigée du niveau).
+ * L'état (ratings, dernière date, parties déjà classées à cette date) est sauvegardé dans un checkpoint
+ * binaire : le lot suivant reprend où le précédent s'est arrêté. Les parties antérieures à la dernière date
+ * sont ignorées, celles de la même seconde seulement si le checkpoint les contient déjà.
+ */
+public class EloRatings {
+
+    public static final double INITIAL_RATING = 1500;
+    public static final double DEFAULT_PLAYER_K = 32;
+    public static final double DEFAULT_DECK_K = 8;
+    public static final int DEFAULT_REDUCERS = 4;
+    public static final String CHECKPOINT_FILE = "_checkpoint";
+    private static final int CHECKPOINT_MAGIC_V1 = 0x454c4f31; // "ELO1", sans parties de la dernière seconde
+    private static final int CHECKPOINT_MAGIC = 0x454c4f32; // "ELO2"
+
+    /**
+     * Lignes de parties nettoyées avec leur timestamp (ms UTC) en clé. Les lignes sans date sont ignorées.
+     */
+    public static class TimestampInputFormat extends FileInputFormat<LongWritable, Text> {
+        @Override
+        public RecordReader<LongWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) {
+            return new TimestampRecordReader();
+        }
+    }
+
+    static class TimestampRecordReader extends RecordReader<LongWritable, Text> {
+        private final LineRecordReader lines = new LineRecordReader();
+        private final LongWritable key = new LongWritable();
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException {
+            lines.initialize(split, context);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException {
+            while (lines.nextKeyValue()) {
+                long ts = timestamp(lines.getCurrentValue().toString());
+                if (ts >= 0) {
+                    key.set(ts);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public LongWritable getCurrentKey() { return key; }
+
+        @Override
+        public Text getCurrentValue() { return lines.getCurrentValue(); }
+
+        @Override
+        public float getProgress() throws IOException { return lines.getProgress(); }
+
+        @Override
+        public void close() throws IOException { lines.close(); }
+    }
+
+    /**
+     * Timestamp du champ "date" (2025-11-11T15:47:37Z) sans désérialiser toute la ligne, -1 si absent.
+     */
+    static long timestamp(String line) {
+        int start = line.indexOf("\"date\":\"");
+        if (start < 0 || start + 27 > line.length()) return -1;
+        try {
+            return LocalDateTime.parse(line.substring(start + 8, start + 27)).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    // --- Tri global : mapper et reducer identité, seul le partitionnement compte ---
+    public static class SortMapper extends Mapper<LongWritable, Text, LongWritable, Text> {}
+
+    public static class SortReducer extends Reducer<LongWritable, Text, LongWritable, Text> {}
+
+    /**
+     * État du classement : ratings en tables primitives et date de la dernière partie prise en compte.
+     */
+    static class RatingState {
+        LongRatingMap players = new LongRatingMap(1 << 16);
+        LongRatingMap decks = new LongRatingMap(1 << 14);
+        long lastTimestamp = Long.MIN_VALUE;
+        long gamesRated;
+        // Clés (gameKey) des parties classées à lastTimestamp : un lot qui commence à la même seconde
+        // ne saute que celles-ci
+        Set<Long> lastSecondGames = new HashSet<>();
+
+        /** Enregistre une partie classée, dans l'ordre chronologique. */
+        void rated(long ts, long gameKey) {
+            if (ts != lastTimestamp) {
+                lastSecondGames.clear();
+                lastTimestamp = ts;
+            }
+            lastSecondGames.add(gameKey);
+            gamesRated++;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeLong(lastTimestamp);
+            out.writeLong(gamesRated);
+            players.write(out);
+            decks.write(out);
+            out.writeInt(lastSecondGames.size());
+            for (long gameKey : lastSecondGames) {
+                out.writeLong(gameKey);
+            }
+        }
+
+        static RatingState read(DataInputStream in) throws IOException {
+            int magic = in.readInt();
+            if (magic != CHECKPOINT_MAGIC && magic != CHECKPOINT_MAGIC_V1) {
+                throw new IOException("Checkpoint Elo invalide");
+            }
+            RatingState state = new RatingState();
+            state.lastTimestamp = in.readLong();
+            state.gamesRated = in.readLong();
+            state.players = LongRatingMap.read(in);
+            state.decks = LongRatingMap.read(in);
+            if (magic == CHECKPOINT_MAGIC) {
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) {
+                    state.lastSecondGames.add(in.readLong());
+                }
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Clé d'un joueur : hash 64 bits de son tag (collision négligeable à quelques millions de joueurs).
+     */
+    static long playerKey(String utag) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < utag.length(); i++) {
+            h ^= utag.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return LongCounterMap.mix(h);
+    }
+
+    /**
+     * Identité d'une partie à une seconde donnée : paire de joueurs et round (comme le dédoublonnage de clean).
+     */
+    static long gameKey(Game game) {
+        return playerKey(game.getPlayerPairKey());
+    }
+
+    /**
+     * Clé d'un deck : les 8 identifiants de cartes triés, un octet chacun. -1 si le deck est invalide.
+     */
+    static long deckKey(String[] cards) {
+        if (cards == null || cards.length != CardDictionary.MAX_CARDS) return -1;
+        int[] ids;
+        try {
+            ids = CardDictionary.sortedIds(cards);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (ids == null || ids[ids.length - 1] >= CardDictionary.CARD_COUNT) return -1;
+        long key = 0;
+        for (int id : ids) {
+            key = (key << 8) | id;
+        }
+        return key;
+    }
+
+    static String deckArchetype(long key) {
+        StringBuilder sb = new StringBuilder(16);
+        for (int i = CardDictionary.MAX_CARDS - 1; i >= 0; i--) {
+            sb.append(CardDictionary.cardHex((int) (key >>> (i * 8)) & 0xff));
+        }
+        return sb.toString();
+    }
+
+    // --- Main job runner ---
+    public static boolean runJob(String inputPath, String outputPath, String checkpointPath, int reducers,
+                                 double playerK, double deckK, long minGames) throws Exception {
+        if (reducers < 1) {
+            throw new IllegalArgumentException("reducers doit être >= 1 (reçu " + reducers + ")");
+        }
+        Configuration conf = new Configuration();
+        Path out = new Path(outputPath);
+        Path sorted = new Path(out, "sorted");
+        FileSystem fs = out.getFileSystem(conf);
+
+        Job job = Job.getInstance(conf, "PLE Clash Royale - Elo (tri chronologique)");
+        job.setJarByClass(EloRatings.class);
+        job.setInputFormatClass(TimestampInputFormat.class);
+        job.setMapperClass(SortMapper.class);
+        job.setReducerClass(SortReducer.class);
+        job.setMapOutputKeyClass(LongWritable.class);
+        job.setMapOutputValueClass(Text.class);
+        job.setOutputKeyClass(LongWritable.class);
+        job.setOutputValueClass(Text.class);
+        job.setOutputFormatClass(SequenceFileOutputFormat.class);
+        job.setNumReduceTasks(reducers);
+        FileInputFormat.addInputPaths(job, inputPath);
+        FileOutputFormat.setOutputPath(job, sorted);
+
+        if (reducers > 1) {
+            // Bornes des partitions tirées d'un échantillon des timestamps (même InputFormat que le job)
+            Path partitionFile = new Path(out, "_partitions");
+            TotalOrderPartitioner.setPartitionFile(job.getConfiguration(), partitionFile);
+            InputSampler.writePartitionFile(job, new InputSampler.RandomSampler<LongWritable, Text>(0.01, 10000, 10));
+            job.setPartitionerClass(TotalOrderPartitioner.class);
+        }
+
+        if (!job.waitForCompletion(true)) return false;
+
+        // --- Passe unique dans l'ordre des partitions ---
+        Path checkpoint = checkpointPath != null ? new Path(checkpointPath) : new Path(out, CHECKPOINT_FILE);
+        FileSystem checkpointFs = checkpoint.getFileSystem(conf);
+        Path previous = new Path(checkpoint.getParent(), "." + checkpoint.getName() + ".old");
+        RatingState state = new RatingState();
+        // Arrêt entre les deux renommages de la sauvegarde : seul l'ancien checkpoint existe
+        Path resumeFrom = checkpointFs.exists(checkpoint) ? checkpoint : previous;
+        if (checkpointPath != null && checkpointFs.exists(resumeFrom)) {
+            try (DataInputStream in = checkpointFs.open(resumeFrom)) {
+                state = RatingState.read(in);
+            }
+            System.out.println(">>> Reprise du checkpoint : " + state.gamesRated + " parties, "
+                    + state.players.size() + " joueurs, " + state.decks.size() + " decks");
+        }
+        long startGames = state.gamesRated;
+        // Parties de la dernière seconde du checkpoint : déjà classées si elles sont dans ce jeu
+        long resumeTimestamp = state.lastTimestamp;
+        Set<Long> resumeGames = new HashSet<>(state.lastSecondGames);
+
+        FileStatus[] parts = fs.globStatus(new Path(sorted, "part-r-*"));
+        Arrays.sort(parts);
+        Gson gson = new Gson();
+        long skipped = 0;
+        long invalid = 0;
+        LongWritable key = new LongWritable();
+        Text value = new Text();
+        for (FileStatus part : parts) {
+            try (SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(part.getPath()))) {
+                while (reader.next(key, value)) {
+                    long ts = key.get();
+                    // Partie plus ancienne que l'état courant (lot déjà traité) : Elo n'est pas commutatif
+                    if (ts < resumeTimestamp || ts < state.lastTimestamp) {
+                        skipped++;
+                        continue;
+                    }
+                    Game game;
+                    try {
+                        game = gson.fromJson(value.toString(), Game.class);
+                    } catch (Exception e) {
+                        game = null;
+                    }
+                    if (game == null || !game.isValid()) {
+                        invalid++;
+                        continue;
+                    }
+                    long gameKey = gameKey(game);
+                    if (ts == resumeTimestamp && resumeGames.contains(gameKey)) {
+                        skipped++;
+                        continue;
+                    }
+                    rate(state, game, playerK, deckK);
+                    state.rated(ts, gameKey);
+                }
+            }
+        }
+
+        // Checkpoint écrit à côté puis mis en place par renommages : l'ancien est mis de côté (.old) avant
+        // d'être remplacé, il reste toujours un état complet lisible (relu au démarrage si besoin)
+        Path tmp = new Path(checkpoint.getParent(), "." + checkpoint.getName() + ".tmp");
+        try (DataOutputStream outStream = checkpointFs.create(tmp, true)) {
+            state.write(outStream);
+        }
+        if (checkpointFs.exists(checkpoint)) {
+            checkpointFs.delete(previous, false);
+            if (!checkpointFs.rename(checkpoint, previous)) {
+                throw new IOException("Impossible de mettre de côté le checkpoint " + checkpoint);
+            }
+        }
+        if (!checkpointFs.rename(tmp, checkpoint)) {
+            throw new IOException("Impossible d'écrire le checkpoint " + checkpoint);
+        }
+        checkpointFs.delete(previous, false);
+
+        List<Integer> ranked = writeDecks(state, new Path(out, "decks"), fs, minGames);
+
+        Properties summary = new Properties();
+        summary.setProperty("games", String.valueOf(state.gamesRated - startGames));
+        summary.setProperty("totalGames", String.valueOf(state.gamesRated));
+        summary.setProperty("skippedOutOfOrder", String.valueOf(skipped));
+        summary.setProperty("players", String.valueOf(state.players.size()));
+        summary.setProperty("decks", String.valueOf(state.decks.size()));
+        summary.setProperty("lastTimestamp", String.valueOf(state.lastTimestamp));
+        summary.setProperty("checkpoint", checkpoint.toString());
+        NodesAndEdges.writeSummary(out, conf, summary);
+
+        System.out.println("\n-------------------------------------------");
+        System.out.println("  RAPPORT ELO");
+        System.out.println("-------------------------------------------");
+        System.out.println("  Partitions triées    : " + parts.length);
+        System.out.println("  Parties classées     : " + (state.gamesRated - startGames) + " (total " + state.gamesRated + ")");
+        System.out.println("  Ignorées (déjà dans le checkpoint) : " + skipped);
+        System.out.println("  Invalides            : " + invalid);
+        System.out.println("  Joueurs / decks      : " + state.players.size() + " / " + state.decks.size());
+        System.out.println("  K joueur / K deck    : " + playerK + " / " + deckK);
+        System.out.println("  Checkpoint           : " + checkpoint);
+        System.out.println("-------------------------------------------");
+        System.out.println("  Meilleurs decks (>= " + minGames + " parties) : bonus;parties");
+        for (int i = 0; i < Math.min(10, ranked.size()); i++) {
+            int slot = ranked.get(i);
+            System.out.println(String.format("  %s %+7.1f %8d", deckArchetype(state.decks.keyAt(slot)),
+                    state.decks.ratingAt(slot), state.decks.gamesAt(slot)).replace(',', '.'));
+        }
+        System.out.println("-------------------------------------------\n");
+
+        return true;
+    }
+
+    /**
+     * Met à jour les ratings après une partie : même écart (résultat - attendu) pour le joueur et son deck.
+     */
+    static void rate(RatingState state, Game game, double playerK, double deckK) {
+        Player p0 = game.getPlayers().get(0);
+        Player p1 = game.getPlayers().get(1);
+        long k0 = playerKey(p0.getUtag());
+        long k1 = playerKey(p1.getUtag());
+        long d0 = deckKey(p0.getCards());
+        long d1 = deckKey(p1.getCards());
+
+        double r0 = state.players.get(k0, INITIAL_RATING);
+        double r1 = state.players.get(k1, INITIAL_RATING);
+        double b0 = d0 >= 0 ? state.decks.get(d0, 0) : 0;
+        double b1 = d1 >= 0 ? state.decks.get(d1, 0) : 0;
+
+        double expected0 = 1.0 / (1.0 + Math.pow(10, ((r1 + b1) - (r0 + b0)) / 400.0));
+        double score0 = game.getWinner() == 0 ? 1.0 : 0.0;
+        double delta = score0 - expected0;
+
+        state.players.update(k0, r0 + playerK * delta);
+        state.players.update(k1, r1 - playerK * delta);
+        // Miroir : les deux bonus s'annulent, rien à apprendre sur le deck
+        if (d0 != d1) {
+            if (d0 >= 0) state.decks.update(d0, b0 + deckK * delta);
+            if (d1 >= 0) state.decks.update(d1, b1 - deckK * delta);
+        }
+    }
+
+    /**
+     * Écrit archetype;bonus;parties des decks avec assez de parties, par bonus décroissant.
+     */
+    private static List<Integer> writeDecks(final RatingState state, Path file, FileSystem fs, long minGames) throws IOException {
+        List<Integer> ranked = new ArrayList<>();
+        for (int slot = 0; slot < state.decks.capacity(); slot++) {
+            if (state.decks.isUsed(slot) && state.decks.gamesAt(slot) >= minGames) ranked.add(slot);
+        }
+        Collections.sort(ranked, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(state.decks.ratingAt(b), state.decks.ratingAt(a));
+            }
+        });
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fs.create(file, true), StandardCharsets.UTF_8))) {
+            for (int slot : ranked) {
+                writer.write(deckArchetype(state.decks.keyAt(slot)) + ";"
+                        + String.format("%.2f", state.decks.ratingAt(slot)).replace(',', '.') + ";" + state.decks.gamesAt(slot));
+                writer.newLine();
+            }
+        }
+        return ranked;
+    }
+}
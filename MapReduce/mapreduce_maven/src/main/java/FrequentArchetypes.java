@@ -0,0 +1,237 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import com.google.gson.Gson;
+
+/**
+ * Archétypes fréquents de toutes tailles (Apriori) : au lieu d'énumérer les C(8,k) sous-ensembles de
+ * chaque deck pour un k fixé, un job par niveau L = 1..8 ne compte que les combinaisons de L cartes
+ * dont tous les sous-ensembles de L-1 cartes sont fréquents au niveau précédent.
+ *
+ * Chaque niveau réutilise les clés "N|" et le combiner/reducer de NodesAndEdges (élagage par
+ * MIN_SUPPORT_KEY) : sortie <out>/level-L/nodes-r-* au format archetype;count;wins habituel.
+ * Arrêt dès qu'un niveau ne contient plus aucune combinaison fréquente.
+ */
+public class FrequentArchetypes {
+
+    // Dossier des combinaisons fréquentes du niveau précédent (vide au niveau 1)
+    public static final String PREVIOUS_LEVEL_KEY = "apriori.previous.level";
+    public static final String LEVEL_KEY = "apriori.level";
+    public static final long DEFAULT_MIN_SUPPORT = 100;
+
+    // --- COMPTEURS PERSONNALISÉS ---
+    public enum Counters {
+        // Sous-ensembles qu'aurait émis l'énumération exhaustive de --size=L
+        EXHAUSTIVE_SUBSETS,
+        // Dont écartés car un de leurs sous-ensembles de L-1 cartes n'est pas fréquent
+        APRIORI_PRUNED
+    }
+
+    // --- MAPPER ---
+    public static class CandidateMapper extends Mapper<Object, Text, Text, Text> {
+        private final Gson gson = new Gson();
+        private final MapThreads.CounterBatch counters = new MapThreads.CounterBatch();
+        private int level;
+        private double sampleRate;
+        private Set<String> previous;   // null au niveau 1
+
+        @Override
+        protected void setup(Context context) throws IOException {
+            Configuration conf = context.getConfiguration();
+            level = conf.getInt(LEVEL_KEY, 1);
+            sampleRate = conf.getDouble(Sampling.SAMPLE_RATE_KEY, 1.0);
+            String previousDir = conf.get(PREVIOUS_LEVEL_KEY);
+            if (previousDir != null) {
+                previous = loadFrequent(new Path(previousDir), conf);
+            }
+        }
+
+        @Override
+        public void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            // Mêmes parties (validation, échantillon) et mêmes clés que nodes --size=L
+            Game game = NodesAndEdges.readGame(value, gson, sampleRate, counters);
+            if (game == null) return;
+
+            int winner = game.getWinner();
+            for (int p = 0; p < 2; p++) {
+                emitCandidates(NodesAndEdges.sortedCards(game.getPlayers().get(p)), winner == p ? 1 : 0, context);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) {
+            counters.flush(context);
+        }
+
+        /**
+         * Émet les combinaisons de `level` cartes du deck dont tous les sous-ensembles de level-1
+         * cartes sont fréquents (masques de bits sur les 8 cartes triées).
+         */
+        private void emitCandidates(String[] sorted, int win, Context context) throws IOException, InterruptedException {
+            int n = sorted.length;
+            if (n < level) return;
+
+            Text one = new Text("1," + win);
+            StringBuilder sb = new StringBuilder(level * 2);
+            for (int mask = 0; mask < (1 << n); mask++) {
+                if (Integer.bitCount(mask) != level) continue;
+                counters.increment(Counters.EXHAUSTIVE_SUBSETS);
+                if (previous != null && !allSubsetsFrequent(sorted, mask, sb)) {
+                    counters.increment(Counters.APRIORI_PRUNED);
+                    continue;
+                }
+                context.write(new Text("N|" + join(sorted, mask, -1, sb)), one);
+                counters.increment(NodesAndEdges.Counters.MAPPER_NODES_EMITTED);
+            }
+        }
+
+        private boolean allSubsetsFrequent(String[] sorted, int mask, StringBuilder sb) {
+            for (int i = 0; i < sorted.length; i++) {
+                if ((mask & (1 << i)) != 0 && !previous.contains(join(sorted, mask, i, sb))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Cartes du masque concaténées (triées), sans la carte d'indice `skip` (-1 = aucune).
+         */
+        private static String join(String[] sorted, int mask, int skip, StringBuilder sb) {
+            sb.setLength(0);
+            for (int i = 0; i < sorted.length; i++) {
+                if (i != skip && (mask & (1 << i)) != 0) sb.append(sorted[i]);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Charge les archétypes d'un niveau (nodes-r-*) : quelques milliers de combinaisons au plus
+     * quand le support minimal est significatif.
+     */
+    static Set<String> loadFrequent(Path levelDir, Configuration conf) throws IOException {
+        Set<String> frequent = new HashSet<>();
+        FileSystem fs = levelDir.getFileSystem(conf);
+        FileStatus[] parts = fs.globStatus(new Path(levelDir, "nodes-r-*"));
+        if (parts == null) return frequent;
+        for (FileStatus part : parts) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(part.getPath())))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int sep = line.indexOf(';');
+                    if (sep > 0) frequent.add(line.substring(0, sep));
+                }
+            }
+        }
+        return frequent;
+    }
+
+    // --- Main job runner ---
+    public static boolean runJob(String inputPath, String outputPath, long minSupport, int maxSize) throws Exception {
+        return runJob(inputPath, outputPath, minSupport, maxSize, new Configuration());
+    }
+
+    /**
+     * Lance les jobs avec une configuration de base déjà remplie (Sampling.SAMPLE_RATE_KEY,
+     * InputFiles.COMBINE_SPLIT_MB_KEY...), copiée pour chaque niveau.
+     */
+    public static boolean runJob(String inputPath, String outputPath, long minSupport, int maxSize,
+                                 Configuration baseConf) throws Exception {
+        double sampleRate = baseConf.getDouble(Sampling.SAMPLE_RATE_KEY, 1.0);
+        // Comme nodes : counts remis à l'échelle si échantillon (élagage sur les counts estimés)
+        baseConf.setBoolean(Sampling.SCALE_COUNTS_KEY, sampleRate < 1.0);
+        Path out = new Path(outputPath);
+        Properties summary = new Properties();
+        summary.setProperty("minSupport", String.valueOf(minSupport));
+        summary.setProperty("sample", String.valueOf(sampleRate));
+
+        long[] emitted = new long[maxSize + 1];
+        long[] exhaustive = new long[maxSize + 1];
+        long[] frequent = new long[maxSize + 1];
+        long games = 0;
+        int lastLevel = 0;
+
+        for (int level = 1; level <= maxSize; level++) {
+            Configuration conf = new Configuration(baseConf);
+            conf.setInt(LEVEL_KEY, level);
+            conf.setLong(NodesAndEdges.MIN_SUPPORT_KEY, minSupport);
+            if (level > 1) {
+                conf.set(PREVIOUS_LEVEL_KEY, new Path(out, "level-" + (level - 1)).toString());
+            }
+
+            Job job = Job.getInstance(conf, "PLE Clash Royale - Frequent archetypes (level " + level + ")");
+            job.setJarByClass(FrequentArchetypes.class);
+            job.setMapperClass(CandidateMapper.class);
+            job.setCombinerClass(NodesAndEdges.ArchetypeCombiner.class);
+            job.setReducerClass(NodesAndEdges.ArchetypeReducer.class);
+
+            job.setMapOutputKeyClass(Text.class);
+            job.setMapOutputValueClass(Text.class);
+            job.setOutputKeyClass(Text.class);
+            job.setOutputValueClass(Text.class);
+
+            InputFiles.configure(job, inputPath);
+            LazyOutputFormat.setOutputFormatClass(job, TextOutputFormat.class);
+            MultipleOutputs.addNamedOutput(job, "nodes", TextOutputFormat.class, Text.class, Text.class);
+            FileOutputFormat.setOutputPath(job, new Path(out, "level-" + level));
+
+            if (!job.waitForCompletion(true)) return false;
+
+            org.apache.hadoop.mapreduce.Counters c = job.getCounters();
+            games = c.findCounter(NodesAndEdges.Counters.GAMES_PROCESSED).getValue();
+            emitted[level] = c.findCounter(NodesAndEdges.Counters.MAPPER_NODES_EMITTED).getValue();
+            exhaustive[level] = c.findCounter(Counters.EXHAUSTIVE_SUBSETS).getValue();
+            frequent[level] = c.findCounter(NodesAndEdges.Counters.REDUCER_NODES_WRITTEN).getValue();
+            summary.setProperty("level." + level, String.valueOf(frequent[level]));
+            lastLevel = level;
+
+            // Plus aucune combinaison fréquente : aucune de taille supérieure ne peut l'être
+            if (frequent[level] == 0) break;
+        }
+
+        summary.setProperty("games", String.valueOf(games));
+        summary.setProperty("levels", String.valueOf(lastLevel));
+        NodesAndEdges.writeSummary(out, baseConf, summary);
+
+        System.out.println("\n-------------------------------------------");
+        System.out.println("  RAPPORT ARCHÉTYPES FRÉQUENTS");
+        System.out.println("-------------------------------------------");
+        System.out.println("  Support minimal      : " + minSupport + " parties");
+        System.out.println("  Parties traitées     : " + games);
+        if (sampleRate < 1.0) {
+            System.out.println("  Échantillon          : " + String.format("%.1f%%", sampleRate * 100) + " (counts remis à l'échelle)");
+        }
+        System.out.println("  Niveau  candidats émis / exhaustif       fréquents");
+        long totalEmitted = 0;
+        long totalExhaustive = 0;
+        for (int level = 1; level <= lastLevel; level++) {
+            totalEmitted += emitted[level];
+            totalExhaustive += exhaustive[level];
+            System.out.println(String.format("  %-6d %14d / %-14d %10d", level, emitted[level], exhaustive[level], frequent[level]));
+        }
+        if (totalExhaustive > 0) {
+            System.out.println("  Émissions évitées    : " + String.format("%.1f%%",
+                    (1.0 - (double) totalEmitted / totalExhaustive) * 100));
+        }
+        System.out.println("-------------------------------------------\n");
+
+        return true;
+    }
+}
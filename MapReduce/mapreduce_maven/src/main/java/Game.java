@@ -29,6 +29,8 @@ public class Game {
         return true;
     }
     
+    public String getDate() { return date; }
+
     public int getWinner() { return winner; }
     
     public List<Player> getPlayers() { return players; }
@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.CombineTextInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+
+/**
+ * Entrées texte des jobs clean et nodes : plusieurs chemins séparés par des virgules, motifs glob
+ * (ex: raw/2025-11-1{1,2}-*.json), et mode --combine=Mo pour les dumps horaires.
+ *
+ * Sans --combine, TextInputFormat crée au moins un map par fichier : sur une journée de petits
+ * fichiers, le démarrage des conteneurs coûte plus que le traitement. CombineTextInputFormat
+ * regroupe les blocs par nœud puis par rack en splits d'au plus la taille demandée.
+ */
+public class InputFiles {
+
+    // Taille maximale d'un split combiné en Mo (0 = un split par fichier/bloc, TextInputFormat)
+    public static final String COMBINE_SPLIT_MB_KEY = "input.combine.split.mb";
+
+    private InputFiles() {}
+
+    /**
+     * Déclare les entrées du job (liste "a,b,c/*") et choisit le format selon COMBINE_SPLIT_MB_KEY.
+     */
+    public static void configure(Job job, String inputPaths) throws IOException {
+        long combineMb = job.getConfiguration().getLong(COMBINE_SPLIT_MB_KEY, 0);
+        if (combineMb > 0) {
+            job.setInputFormatClass(CombineTextInputFormat.class);
+            CombineTextInputFormat.setMaxInputSplitSize(job, combineMb << 20);
+        } else {
+            job.setInputFormatClass(TextInputFormat.class);
+        }
+        // addInputPaths découpe sur les virgules hors accolades : {a,b} reste un seul motif glob
+        FileInputFormat.addInputPaths(job, inputPaths);
+    }
+
+    /**
+     * Découpe une liste d'entrées sur les virgules hors accolades (comme FileInputFormat.addInputPaths).
+     */
+    public static List<String> split(String inputPaths) {
+        List<String> paths = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < inputPaths.length(); i++) {
+            char c = inputPaths.charAt(i);
+            if (c == '{') depth++;
+            else if (c == '}') depth--;
+            else if (c == ',' && depth == 0) {
+                paths.add(inputPaths.substring(start, i));
+                start = i + 1;
+            }
+        }
+        paths.add(inputPaths.substring(start));
+        return paths;
+    }
+
+    /**
+     * Premier chemin d'une liste d'entrées, pour y lire le _summary de l'étape précédente.
+     */
+    public static Path firstPath(String inputPaths) {
+        return new Path(split(inputPaths).get(0));
+    }
+}
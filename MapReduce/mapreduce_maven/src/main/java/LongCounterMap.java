@@ -0,0 +1,96 @@
+import java.util.Arrays;
+
+/**
+ * Table de hachage à adressage ouvert clé long -> (count, wins), sans objets intermédiaires.
+ * Sert à agréger en mémoire dans les mappers (pas de Long/long[] alloués par entrée).
+ *
+ * Une case est libre tant que son count vaut 0 : on n'insère jamais de count nul.
+ */
+public class LongCounterMap {
+
+    private long[] keys;
+    private long[] counts;
+    private long[] wins;
+    private int size;
+    private int mask;
+
+    public LongCounterMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        wins = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    /**
+     * Ajoute count/wins à l'entrée de la clé (créée si absente). count doit être > 0.
+     */
+    public void add(long key, long count, long win) {
+        int slot = (int) mix(key) & mask;
+        while (counts[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot] += count;
+                wins[slot] += win;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = count;
+        wins[slot] = win;
+        size++;
+        if (size * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldWins = wins;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                add(oldKeys[i], oldCounts[i], oldWins[i]);
+            }
+        }
+    }
+
+    public int size() { return size; }
+
+    /** Nombre de cases, pour itérer avec isUsed(slot). */
+    public int capacity() { return keys.length; }
+
+    public boolean isUsed(int slot) { return counts[slot] != 0; }
+
+    public long keyAt(int slot) { return keys[slot]; }
+
+    public long countAt(int slot) { return counts[slot]; }
+
+    public long winsAt(int slot) { return wins[slot]; }
+
+    /**
+     * Vide la table en gardant sa capacité.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    /**
+     * Mélange des bits (finaliseur de MurmurHash3) pour bien répartir les clés séquentielles.
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
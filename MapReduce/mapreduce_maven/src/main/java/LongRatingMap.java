@@ -0,0 +1,124 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Table de hachage à adressage ouvert clé long -> (rating, nombre de parties), sans objets intermédiaires.
+ * Même principe que LongCounterMap, pour les classements Elo tenus en mémoire par le driver.
+ */
+public class LongRatingMap {
+
+    private long[] keys;
+    private double[] ratings;
+    private int[] games;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    public LongRatingMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        ratings = new double[capacity];
+        games = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private int find(long key) {
+        int slot = (int) LongCounterMap.mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Rating de la clé, ou defaultRating si elle n'a encore joué aucune partie.
+     */
+    public double get(long key, double defaultRating) {
+        int slot = find(key);
+        return used[slot] ? ratings[slot] : defaultRating;
+    }
+
+    public int games(long key) {
+        int slot = find(key);
+        return used[slot] ? games[slot] : 0;
+    }
+
+    /**
+     * Enregistre le nouveau rating après une partie (crée l'entrée si absente).
+     */
+    public void update(long key, double rating) {
+        put(key, rating, 1);
+    }
+
+    private void put(long key, double rating, int addGames) {
+        int slot = find(key);
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        ratings[slot] = rating;
+        games[slot] += addGames;
+        if (size * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        double[] oldRatings = ratings;
+        int[] oldGames = games;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldRatings[i], oldGames[i]);
+            }
+        }
+    }
+
+    public int size() { return size; }
+
+    /** Nombre de cases, pour itérer avec isUsed(slot). */
+    public int capacity() { return keys.length; }
+
+    public boolean isUsed(int slot) { return used[slot]; }
+
+    public long keyAt(int slot) { return keys[slot]; }
+
+    public double ratingAt(int slot) { return ratings[slot]; }
+
+    public int gamesAt(int slot) { return games[slot]; }
+
+    /**
+     * Format binaire : taille puis (clé, rating, parties) de chaque entrée.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                out.writeLong(keys[i]);
+                out.writeDouble(ratings[i]);
+                out.writeInt(games[i]);
+            }
+        }
+    }
+
+    public static LongRatingMap read(DataInput in) throws IOException {
+        int n = in.readInt();
+        LongRatingMap map = new LongRatingMap(n);
+        for (int i = 0; i < n; i++) {
+            long key = in.readLong();
+            double rating = in.readDouble();
+            map.put(key, rating, in.readInt());
+        }
+        return map;
+    }
+}
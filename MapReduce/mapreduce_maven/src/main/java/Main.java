@@ -1,5 +1,9 @@
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -10,9 +14,27 @@ public class Main {
     /**
      * Point d'entrée principal.
      * Arguments:
-     *   clean <input> <output>
-     *   nodes <input_cleaned> <output> [--size=k]
-     *   stats <nodes_file> <edges_file> <output>
+     *   clean <input[,input...]> <output> [--sample=p] [--combine=Mo] [--map-threads=n]
+     *   nodes <input_cleaned[,...]> <output> [--size=k] [--combine=Mo] [--canonical] [--min-support=n] [--dense-max=k]
+     *                                  [--cube=day|week] [--trophy-step=1000] [--sample=p] [--combiner-min=0.2]
+     *                                  [--map-threads=n]
+     *   frequent <input_cleaned[,...]> <output> [--min-support=100] [--max-size=8] [--sample=p] [--combine=Mo]
+     *   slice <cube_dir> <output> [--from=t] [--to=t] [--min-trophies=n] [--max-trophies=n] [--min-support=n]
+     *   stats <nodes_file> <edges_file> <output> [--canonical] [--min-support=n] [--sample=p]
+     *   graph <nodes_edges_dir> <output_file> [--algo=strength|dominance|cycles] [--iterations=10]
+     *                                         [--threads=n] [--damping=0.85] [--min-count=10]
+     *   topk <stats_or_edges> <output_index> [--top=10] [--min-count=10]
+     *   counters <index> <archetype>
+     *   lsh <nodes_dir> <output_index> [--bands=10] [--rows=3] [--min-count=1] [--max-bucket=1000]
+     *   similar <index> <archetype> [--top=10] [--min-jaccard=0.5]
+     *   elo <input_cleaned[,...]> <output> [--checkpoint=file] [--reducers=4] [--k-player=32] [--k-deck=8]
+     *                                      [--min-games=20]
+     *   (clean, nodes, frequent, slice, stats, topk, lsh) [--cache=dir] [--cache-max=Mo] [--force]
+     *   generate <output_file> [--lines=100000] [--seed=42] [--cards=120] [--card-skew=0.8] [--decks=20000]
+     *                          [--deck-skew=1.1] [--players=n] [--dup-rate=0.005] [--near-dup-rate=0.005]
+     *                          [--malformed-rate=0.001] [--days=14]
+     *   bench <workdir> [options de generate] [--input=raw] [--size=1] [--baseline=file] [--save-baseline]
+     *                   [--tolerance=0.25]
      *   all <input_raw> <output_final> [--size=k]
      */
     public static void main(String[] args) throws Exception {
@@ -33,10 +55,50 @@ public class Main {
                 success = runNodesAndEdges(args);
                 break;
             
+            case "frequent":
+                success = runFrequentArchetypes(args);
+                break;
+
+            case "slice":
+                success = runSlice(args);
+                break;
+
             case "stats":
                 success = runStats(args);
                 break;
 
+            case "graph":
+                success = runGraph(args);
+                break;
+
+            case "topk":
+                success = runTopCounters(args);
+                break;
+
+            case "counters":
+                success = runCountersLookup(args);
+                break;
+
+            case "lsh":
+                success = runSimilarIndex(args);
+                break;
+
+            case "similar":
+                success = runSimilarLookup(args);
+                break;
+
+            case "elo":
+                success = runElo(args);
+                break;
+
+            case "generate":
+                success = runGenerate(args);
+                break;
+
+            case "bench":
+                success = runBenchmark(args);
+                break;
+
             case "help":
             case "-h":
             case "--help":
@@ -57,15 +119,21 @@ public class Main {
      */
     private static boolean runDataCleaning(String[] args) throws Exception {
         if (args.length < 3) {
-            System.err.println("Usage: clean <input> <output>");
+            System.err.println("Usage: clean <input[,input...]> <output> [--sample=p] [--combine=Mo] [--map-threads=n]");
             return false;
         }
-        prepareOutput(args[2]);
+        Configuration conf = new Configuration();
+        conf.setDouble(Sampling.SAMPLE_RATE_KEY, parseSampleRate(getOption(args, 3, "--sample=", "1.0")));
+        conf.setLong(InputFiles.COMBINE_SPLIT_MB_KEY, Long.parseLong(getOption(args, 3, "--combine=", "0")));
+        conf.setInt(MapThreads.THREADS_KEY, Integer.parseInt(getOption(args, 3, "--map-threads=", "1")));
+        StageCache cache = openStageCache(args, 3, "clean", args[2], args[1]);
+        if (cache.reuse()) return true;
         
         long startTime = System.currentTimeMillis();
         System.out.println(">>> Démarrage du job DataCleaning...");
         
-        boolean success = DataCleaning.runJob(new String[]{args[1], args[2]});
+        boolean success = DataCleaning.runJob(new String[]{args[1], args[2]}, conf);
+        if (success) cache.store();
         
         long endTime = System.currentTimeMillis();
         long duration = endTime - startTime;
@@ -79,24 +147,57 @@ public class Main {
      */
     private static boolean runNodesAndEdges(String[] args) throws Exception {
         if (args.length < 3) {
-            System.err.println("Usage: nodes <input_cleaned> <output> [--size=8]");
+            System.err.println("Usage: nodes <input_cleaned[,...]> <output> [--size=8] [--canonical] [--min-support=n] [--dense-max=2]"
+                    + " [--cube=day|week] [--trophy-step=1000] [--sample=p] [--combine=Mo] [--combiner-min=0.2] [--map-threads=n]");
             return false;
         }
         
         // Parser la taille d'archétype (optionnel, 8 par défaut)
-        int size = 8;
-        for (int i = 3; i < args.length; i++) {
-            if (args[i].startsWith("--size=")) {
-                size = Integer.parseInt(args[i].substring(7));
-            }
+        int size = Integer.parseInt(getOption(args, 3, "--size=", "8"));
+        String cube = getOption(args, 3, "--cube=", null);
+        if (cube != null && !cube.equals("day") && !cube.equals("week")) {
+            System.err.println("Erreur: --cube doit valoir 'day' ou 'week'");
+            return false;
+        }
+
+        int denseMax = Integer.parseInt(getOption(args, 3, "--dense-max=", String.valueOf(NodesAndEdges.DEFAULT_DENSE_MAX_SIZE)));
+        if (denseMax < 0 || denseMax > NodesAndEdges.MAX_DENSE_SIZE) {
+            System.err.println("Erreur: --dense-max doit être entre 0 et " + NodesAndEdges.MAX_DENSE_SIZE
+                    + " (tableaux de C(256,k) entrées par mapper)");
+            return false;
+        }
+
+        int trophyStep = Integer.parseInt(getOption(args, 3, "--trophy-step=", String.valueOf(NodesAndEdges.DEFAULT_TROPHY_STEP)));
+        if (trophyStep <= 0) {
+            System.err.println("Erreur: --trophy-step doit être > 0 (reçu " + trophyStep + ")");
+            return false;
+        }
+
+        Configuration conf = new Configuration();
+        conf.setInt(NodesAndEdges.ARCHETYPE_SIZE_KEY, size);
+        conf.setBoolean(NodesAndEdges.CANONICAL_EDGES_KEY, hasFlag(args, 3, "--canonical"));
+        conf.setLong(NodesAndEdges.MIN_SUPPORT_KEY, Long.parseLong(getOption(args, 3, "--min-support=", "0")));
+        conf.setInt(NodesAndEdges.DENSE_MAX_SIZE_KEY, denseMax);
+        conf.setLong(InputFiles.COMBINE_SPLIT_MB_KEY, Long.parseLong(getOption(args, 3, "--combine=", "0")));
+        conf.setDouble(NodesAndEdges.COMBINER_MIN_REDUCTION_KEY, Double.parseDouble(getOption(args, 3, "--combiner-min=",
+                String.valueOf(NodesAndEdges.DEFAULT_COMBINER_MIN_REDUCTION))));
+        conf.setInt(MapThreads.THREADS_KEY, Integer.parseInt(getOption(args, 3, "--map-threads=", "1")));
+        // Taux d'échantillonnage : option, sinon celui noté par clean --sample dans l'entrée (la première s'il y en a plusieurs)
+        String inputSample = NodesAndEdges.readSummary(InputFiles.firstPath(args[1]), conf).getProperty("sample", "1.0");
+        conf.setDouble(Sampling.SAMPLE_RATE_KEY, parseSampleRate(getOption(args, 3, "--sample=", inputSample)));
+        if (cube != null) {
+            conf.set(NodesAndEdges.CUBE_TIME_BUCKET_KEY, cube);
+            conf.setInt(NodesAndEdges.CUBE_TROPHY_STEP_KEY, trophyStep);
         }
         
-        prepareOutput(args[2]);
+        StageCache cache = openStageCache(args, 3, "nodes", args[2], args[1]);
+        if (cache.reuse()) return true;
         
         long startTime = System.currentTimeMillis();
         System.out.println(">>> Démarrage du job NodesAndEdges (size=" + size + ")...");
         
-        boolean success = NodesAndEdges.runJob(new String[]{args[1], args[2]}, size);
+        boolean success = NodesAndEdges.runJob(new String[]{args[1], args[2]}, conf);
+        if (success) cache.store();
         
         long endTime = System.currentTimeMillis();
         long duration = endTime - startTime;
@@ -105,30 +206,111 @@ public class Main {
         return success;
     }
 
+    /**
+     * Archétypes fréquents de toutes tailles (Apriori, un job par niveau).
+     */
+    private static boolean runFrequentArchetypes(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: frequent <input_cleaned[,...]> <output> [--min-support=100] [--max-size=8] [--sample=p] [--combine=Mo]");
+            return false;
+        }
+
+        long minSupport = Long.parseLong(getOption(args, 3, "--min-support=", String.valueOf(FrequentArchetypes.DEFAULT_MIN_SUPPORT)));
+        int maxSize = Integer.parseInt(getOption(args, 3, "--max-size=", "8"));
+        if (minSupport < 1 || maxSize < 1 || maxSize > CardDictionary.MAX_CARDS) {
+            System.err.println("Erreur: --min-support doit être >= 1 et --max-size entre 1 et 8");
+            return false;
+        }
+
+        Configuration conf = new Configuration();
+        // Même échantillon que nodes : option, sinon celui noté par clean --sample dans l'entrée
+        String inputSample = NodesAndEdges.readSummary(InputFiles.firstPath(args[1]), conf).getProperty("sample", "1.0");
+        conf.setDouble(Sampling.SAMPLE_RATE_KEY, parseSampleRate(getOption(args, 3, "--sample=", inputSample)));
+        conf.setLong(InputFiles.COMBINE_SPLIT_MB_KEY, Long.parseLong(getOption(args, 3, "--combine=", "0")));
+
+        StageCache cache = openStageCache(args, 3, "frequent", args[2], args[1]);
+        if (cache.reuse()) return true;
+
+        long startTime = System.currentTimeMillis();
+        System.out.println(">>> Démarrage des jobs FrequentArchetypes (support " + minSupport + ")...");
+
+        boolean success = FrequentArchetypes.runJob(args[1], args[2], minSupport, maxSize, conf);
+        if (success) cache.store();
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(">>> Jobs FrequentArchetypes terminés en " + formatDuration(duration));
+
+        return success;
+    }
+
+    /**
+     * Extrait une tranche (période, trophées) d'un cube généré par nodes --cube=...
+     * La sortie a le format habituel nodes/edges et peut être passée directement à stats.
+     */
+    private static boolean runSlice(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: slice <cube_dir> <output> [--from=t] [--to=t] [--min-trophies=n] [--max-trophies=n] [--min-support=n]");
+            return false;
+        }
+
+        String from = getOption(args, 3, "--from=", null);
+        String to = getOption(args, 3, "--to=", null);
+        int minTrophies = Integer.parseInt(getOption(args, 3, "--min-trophies=", "-1"));
+        int maxTrophies = Integer.parseInt(getOption(args, 3, "--max-trophies=", "-1"));
+        long minSupport = Long.parseLong(getOption(args, 3, "--min-support=", "0"));
+
+        StageCache cache = openStageCache(args, 3, "slice", args[2], args[1]);
+        if (cache.reuse()) return true;
+
+        long startTime = System.currentTimeMillis();
+        System.out.println(">>> Démarrage du job Slice...");
+
+        boolean success = NodesAndEdges.runSliceJob(args[1], args[2], from, to, minTrophies, maxTrophies, minSupport);
+        if (success) cache.store();
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(">>> Job Slice terminé en " + formatDuration(duration));
+
+        return success;
+    }
+
     /**
      * Exécute le job de calcul des statistiques avec prévisions.
-     * Calcule automatiquement N_ALL en sommant les counts des edges.
+     * Calcule automatiquement N_ALL : lu dans le _summary de NodesAndEdges s'il existe
+     * (exact même avec --min-support), sinon en sommant les counts des edges.
      * nécessite d'avoir généré les nœuds et arêtes au préalable (logique)
      */
     private static boolean runStats(String[] args) throws Exception {
         if (args.length < 4) {
-            System.err.println("Usage: stats <nodes_file> <edges_file> <output>");
+            System.err.println("Usage: stats <nodes_file> <edges_file> <output> [--canonical] [--min-support=n] [--sample=p]");
             return false;
         }
         
         String nodesPath = args[1];
         String edgesPath = args[2];
         String outputPath = args[3];
+        long minSupport = Long.parseLong(getOption(args, 4, "--min-support=", "0"));
+
+        // Le récapitulatif de NodesAndEdges indique le mode des arêtes et nAll avant élagage
+        Properties summary = NodesAndEdges.readSummary(new Path(edgesPath), new Configuration());
+        boolean canonical = hasFlag(args, 4, "--canonical")
+                || Boolean.parseBoolean(summary.getProperty("canonical", "false"));
         
-        // Calculer nAll automatiquement en sommant les counts des edges
-        long nAll = calculateNAll(edgesPath);
+        // Calculer nAll automatiquement (récapitulatif, sinon somme des counts des edges)
+        long nAll = summary.containsKey("nAll")
+                ? Long.parseLong(summary.getProperty("nAll"))
+                : calculateNAll(edgesPath);
+        System.out.println(">>> nAll = " + nAll);
+        double sampleRate = parseSampleRate(getOption(args, 4, "--sample=", summary.getProperty("sample", "1.0")));
         
-        prepareOutput(outputPath);
+        StageCache cache = openStageCache(args, 4, "stats", outputPath, nodesPath, edgesPath);
+        if (cache.reuse()) return true;
         
         long startTime = System.currentTimeMillis();
         System.out.println(">>> Démarrage du job Stats...");
         
-        boolean success = Stats.runJob(nodesPath, edgesPath, outputPath, nAll);
+        boolean success = Stats.runJob(nodesPath, edgesPath, outputPath, nAll, canonical, minSupport, sampleRate);
+        if (success) cache.store();
         
         long endTime = System.currentTimeMillis();
         long duration = endTime - startTime;
@@ -137,10 +319,266 @@ public class Main {
         return success;
     }
     
+    /**
+     * Exécute une analyse itérative en mémoire sur le graphe des matchups (CSR multi-thread).
+     */
+    private static boolean runGraph(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: graph <nodes_edges_dir> <output_file> [--algo=strength|dominance|cycles]"
+                    + " [--iterations=10] [--threads=n] [--damping=0.85] [--min-count=10]");
+            return false;
+        }
+
+        String algo = getOption(args, 3, "--algo=", MatchupGraph.ALGO_STRENGTH);
+        int iterations = Integer.parseInt(getOption(args, 3, "--iterations=", "10"));
+        int threads = Integer.parseInt(getOption(args, 3, "--threads=",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        double damping = Double.parseDouble(getOption(args, 3, "--damping=", "0.85"));
+        long minCount = Long.parseLong(getOption(args, 3, "--min-count=", "10"));
+        // Options invalides : rien n'est supprimé ni créé
+        if (!MatchupGraph.isKnownAlgo(algo)) {
+            System.err.println("Erreur: --algo doit valoir strength, dominance ou cycles (reçu '" + algo + "')");
+            return false;
+        }
+        if (threads < 1) {
+            System.err.println("Erreur: --threads doit être >= 1 (reçu " + threads + ")");
+            return false;
+        }
+
+        prepareOutput(args[2]);
+
+        long startTime = System.currentTimeMillis();
+        System.out.println(">>> Démarrage de l'analyse Graph (" + algo + ")...");
+
+        boolean success = MatchupGraph.run(args[1], args[2], algo, iterations, threads, damping, minCount);
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(">>> Analyse Graph terminée en " + formatDuration(duration));
+
+        return success;
+    }
+
+    /**
+     * Construit l'index des K meilleurs contres de chaque archétype.
+     */
+    private static boolean runTopCounters(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: topk <stats_or_edges> <output_index> [--top=10] [--min-count=10]");
+            return false;
+        }
+
+        int k = Integer.parseInt(getOption(args, 3, "--top=", String.valueOf(TopCounters.DEFAULT_TOP_K)));
+        long minCount = Long.parseLong(getOption(args, 3, "--min-count=", String.valueOf(TopCounters.DEFAULT_MIN_COUNT)));
+
+        StageCache cache = openStageCache(args, 3, "topk", args[2], args[1]);
+        if (cache.reuse()) return true;
+
+        long startTime = System.currentTimeMillis();
+        System.out.println(">>> Démarrage du job TopCounters (K=" + k + ")...");
+
+        boolean success = TopCounters.runJob(args[1], args[2], k, minCount);
+        if (success) cache.store();
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(">>> Job TopCounters terminé en " + formatDuration(duration));
+
+        return success;
+    }
+
+    /**
+     * Affiche les meilleurs contres d'un archétype à partir de l'index topk.
+     */
+    private static boolean runCountersLookup(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: counters <index> <archetype>");
+            return false;
+        }
+
+        long startTime = System.nanoTime();
+        String entry = TopCounters.lookup(args[1], args[2]);
+        long micros = (System.nanoTime() - startTime) / 1000;
+
+        if (entry == null) {
+            System.out.println("Archétype '" + args[2] + "' absent de l'index (" + micros + " µs)");
+            return false;
+        }
+
+        System.out.println("Meilleurs contres de " + args[2] + " (" + micros + " µs) :");
+        System.out.println("  adversaire;taux_lissé;parties;victoires");
+        for (String counter : entry.split("\\|")) {
+            if (!counter.isEmpty()) System.out.println("  " + counter.replace(':', ';'));
+        }
+        return true;
+    }
+
+    /**
+     * Construit l'index LSH (MinHash) des archétypes proches à partir des nœuds.
+     */
+    private static boolean runSimilarIndex(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: lsh <nodes_dir> <output_index> [--bands=10] [--rows=3] [--min-count=1] [--max-bucket=1000]");
+            return false;
+        }
+
+        int bands = Integer.parseInt(getOption(args, 3, "--bands=", String.valueOf(SimilarDecks.DEFAULT_BANDS)));
+        int rows = Integer.parseInt(getOption(args, 3, "--rows=", String.valueOf(SimilarDecks.DEFAULT_ROWS)));
+        long minCount = Long.parseLong(getOption(args, 3, "--min-count=", String.valueOf(SimilarDecks.DEFAULT_MIN_COUNT)));
+        int maxBucket = Integer.parseInt(getOption(args, 3, "--max-bucket=", String.valueOf(SimilarDecks.DEFAULT_MAX_BUCKET)));
+
+        StageCache cache = openStageCache(args, 3, "lsh", args[2], args[1]);
+        if (cache.reuse()) return true;
+
+        long startTime = System.currentTimeMillis();
+        System.out.println(">>> Démarrage du job SimilarDecks (LSH " + bands + "x" + rows + ")...");
+
+        boolean success = SimilarDecks.runJob(args[1], args[2], bands, rows, minCount, maxBucket);
+        if (success) cache.store();
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(">>> Job SimilarDecks terminé en " + formatDuration(duration));
+
+        return success;
+    }
+
+    /**
+     * Affiche les archétypes proches d'un deck (Jaccard exact sur les candidats de l'index LSH).
+     */
+    private static boolean runSimilarLookup(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: similar <index> <archetype> [--top=10] [--min-jaccard=0.5]");
+            return false;
+        }
+        // Archétype : 1 à 8 cartes de 2 chiffres hexa (ex: 5ea83e12), en minuscules comme dans l'index
+        String archetype = args[2].toLowerCase();
+        if (!archetype.matches("([0-9a-f]{2}){1," + CardDictionary.MAX_CARDS + "}")) {
+            System.err.println("Erreur: archétype invalide '" + args[2] + "' (1 à " + CardDictionary.MAX_CARDS
+                    + " cartes de 2 chiffres hexa)");
+            System.err.println("Usage: similar <index> <archetype> [--top=10] [--min-jaccard=0.5]");
+            return false;
+        }
+        int top = Integer.parseInt(getOption(args, 3, "--top=", "10"));
+        double minJaccard = Double.parseDouble(getOption(args, 3, "--min-jaccard=", "0.5"));
+
+        long openStart = System.nanoTime();
+        try (SimilarDecks.Index index = new SimilarDecks.Index(args[1])) {
+            long openMicros = (System.nanoTime() - openStart) / 1000;
+            long startTime = System.nanoTime();
+            List<SimilarDecks.Neighbor> neighbors = index.query(archetype, minJaccard, top);
+            long micros = (System.nanoTime() - startTime) / 1000;
+            // Même requête à chaud : temps d'une requête interactive une fois le code chargé
+            startTime = System.nanoTime();
+            index.query(archetype, minJaccard, top);
+            long warmMicros = (System.nanoTime() - startTime) / 1000;
+
+            System.out.println("Archétypes proches de " + archetype + " (requête " + micros + " µs, à chaud " + warmMicros
+                    + " µs, ouverture index " + openMicros + " µs) :");
+            System.out.println("  archetype;jaccard;parties;victoires;taux");
+            for (SimilarDecks.Neighbor n : neighbors) {
+                System.out.println(String.format("  %s;%.3f;%d;%d;%.3f", n.archetype, n.jaccard, n.count, n.wins,
+                        n.count > 0 ? (double) n.wins / n.count : 0.0).replace(',', '.'));
+            }
+            return !neighbors.isEmpty();
+        }
+    }
+
+    /**
+     * Classements Elo joueurs + decks dans l'ordre chronologique, reprise possible depuis un checkpoint.
+     */
+    private static boolean runElo(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: elo <input_cleaned> <output> [--checkpoint=file] [--reducers=4] [--k-player=32]"
+                    + " [--k-deck=8] [--min-games=20]");
+            return false;
+        }
+        String checkpoint = getOption(args, 3, "--checkpoint=", null);
+        int reducers = Integer.parseInt(getOption(args, 3, "--reducers=", String.valueOf(EloRatings.DEFAULT_REDUCERS)));
+        double playerK = Double.parseDouble(getOption(args, 3, "--k-player=", String.valueOf(EloRatings.DEFAULT_PLAYER_K)));
+        double deckK = Double.parseDouble(getOption(args, 3, "--k-deck=", String.valueOf(EloRatings.DEFAULT_DECK_K)));
+        long minGames = Long.parseLong(getOption(args, 3, "--min-games=", "20"));
+        // 0 reducer = job map-only (part-m-*) : aucune partie ne serait notée et le checkpoint réécrit
+        if (reducers < 1) {
+            System.err.println("Erreur: --reducers doit être >= 1 (reçu " + reducers + ")");
+            return false;
+        }
+
+        // Pas de cache : le résultat dépend aussi de l'état du checkpoint
+        prepareOutput(args[2]);
+
+        long startTime = System.currentTimeMillis();
+        System.out.println(">>> Démarrage du job Elo...");
+
+        boolean success = EloRatings.runJob(args[1], args[2], checkpoint, reducers, playerK, deckK, minGames);
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(">>> Job Elo terminé en " + formatDuration(duration));
+
+        return success;
+    }
+
+    /**
+     * Génère un jeu de parties synthétiques au format brut (entrée de clean).
+     */
+    private static boolean runGenerate(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: generate <output_file> [--lines=100000] [--seed=42] [--cards=120] [--card-skew=0.8]"
+                    + " [--decks=20000] [--deck-skew=1.1] [--players=n] [--dup-rate=0.005] [--near-dup-rate=0.005]"
+                    + " [--malformed-rate=0.001] [--days=14]");
+            return false;
+        }
+
+        WorkloadGenerator generator = WorkloadGenerator.fromArgs(args, 2);
+
+        long startTime = System.currentTimeMillis();
+        System.out.println(">>> Génération de " + generator.lines + " lignes...");
+
+        generator.generate(args[1], new Configuration());
+        generator.printReport();
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(">>> Génération terminée en " + formatDuration(duration));
+
+        return true;
+    }
+
+    /**
+     * Suite de non-régression : clean + nodes + stats en local sur un jeu synthétique,
+     * comparés à une référence (temps, pic de heap, sommes de contrôle).
+     */
+    private static boolean runBenchmark(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: bench <workdir> [options de generate] [--input=raw] [--size=1]"
+                    + " [--baseline=file] [--save-baseline] [--tolerance=0.25]");
+            return false;
+        }
+
+        int size = Integer.parseInt(getOption(args, 2, "--size=", "1"));
+        String baseline = getOption(args, 2, "--baseline=", null);
+        boolean saveBaseline = hasFlag(args, 2, "--save-baseline");
+        if (saveBaseline && baseline == null) {
+            System.err.println("Erreur: --save-baseline nécessite --baseline=file");
+            return false;
+        }
+        double tolerance = Double.parseDouble(getOption(args, 2, "--tolerance=", String.valueOf(Benchmark.DEFAULT_TOLERANCE)));
+
+        long startTime = System.currentTimeMillis();
+        System.out.println(">>> Démarrage du benchmark (size=" + size + ")...");
+
+        boolean success = Benchmark.run(args[1], args, 2, size, getOption(args, 2, "--input=", null),
+                baseline, saveBaseline, tolerance);
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(">>> Benchmark terminé en " + formatDuration(duration));
+
+        return success;
+    }
+
     /**
      * Calcule N_ALL en sommant les counts de toutes les edges.
      * Format edge: archetype1;archetype2;count;wins
-     * Chaque partie génère 2 edges (A→B et B→A).
+     * Chaque paire d'archétypes d'une partie génère une seule arête (joueur 0 → joueur 1,
+     * ou min → max en mode --canonical), la somme est donc la même dans les deux modes.
+     * Ce n'est pas le cas des counts développés par stats en --canonical (A;B et B;A portent
+     * chacun les parties des deux sens) : Stats compare ces arêtes à une prévision sur nAll / 2.
      */
     private static long calculateNAll(String edgesPath) throws Exception {
         Configuration conf = new Configuration();
@@ -160,6 +598,63 @@ public class Main {
         return total;
     }
 
+    /**
+     * Retourne la valeur d'une option "--nom=valeur" à partir de l'indice donné, ou la valeur par défaut.
+     */
+    private static String getOption(String[] args, int from, String prefix, String defaultValue) {
+        for (int i = from; i < args.length; i++) {
+            if (args[i].startsWith(prefix)) {
+                return args[i].substring(prefix.length());
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Valide un taux d'échantillonnage --sample=p (0 < p <= 1).
+     */
+    private static double parseSampleRate(String value) {
+        double rate = Double.parseDouble(value);
+        if (rate <= 0 || rate > 1) {
+            throw new IllegalArgumentException("--sample doit être dans ]0, 1] (reçu " + value + ")");
+        }
+        return rate;
+    }
+
+    /**
+     * Indique si un drapeau sans valeur (ex: "--canonical") est présent à partir de l'indice donné.
+     */
+    private static boolean hasFlag(String[] args, int from, String flag) {
+        for (int i = from; i < args.length; i++) {
+            if (args[i].equals(flag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cache de l'étape (clean, nodes, frequent, slice, stats, topk, lsh) : empreinte des entrées, des options
+     * (hors --cache=, --cache-max=, --force, --combine=, --combiner-min= et --map-threads= qui ne changent pas
+     * le résultat) et du code.
+     * cache.reuse() remplace prepareOutput().
+     */
+    private static StageCache openStageCache(String[] args, int from, String stage, String output, String... inputs)
+            throws Exception {
+        List<String> options = new ArrayList<>();
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--cache=") || arg.startsWith("--cache-max=") || arg.equals("--force")
+                    || arg.startsWith("--combine=") || arg.startsWith("--combiner-min=") || arg.startsWith("--map-threads=")) {
+                continue;
+            }
+            options.add(arg);
+        }
+        long maxMb = Long.parseLong(getOption(args, from, "--cache-max=", String.valueOf(StageCache.DEFAULT_MAX_MB)));
+        return new StageCache(stage, Arrays.asList(inputs), options, output,
+                getOption(args, from, "--cache=", null), maxMb, hasFlag(args, from, "--force"), new Configuration());
+    }
+
     /**
      * Prépare le dossier de sortie en le supprimant s'il existe déjà.
      * évite les erreurs Hadoop liées à l'existence préalable du dossier.
@@ -201,13 +696,54 @@ public class Main {
         System.out.println("Tâches:");
         System.out.println("  clean <input> <output>              - Nettoyage JSON et doublons");
         System.out.println("  nodes <input> <output> [--size=k]   - Génération Nœuds et Arêtes");
+        System.out.println("  frequent <input> <output>           - Archétypes fréquents de 1 à 8 cartes (Apriori, level-L/nodes-r-*)");
+        System.out.println("  slice <cube> <output> [filtres]     - Tranche d'un cube (période, trophées)");
         System.out.println("  stats <nodes> <edges> <output>      - Stats avec prévisions (nAll auto)");
+        System.out.println("  graph <nodes_dir> <output_file>     - Analyse itérative en mémoire (strength, dominance, cycles)");
+        System.out.println("  topk  <stats> <index> [--top=k]     - Index des K meilleurs contres par archétype");
+        System.out.println("  counters <index> <archetype>        - Qui bat ce deck ? (lecture de l'index)");
+        System.out.println("  lsh   <nodes_dir> <index>           - Index MinHash/LSH des archétypes proches");
+        System.out.println("  similar <index> <archetype>         - Decks qui partagent le plus de cartes (Jaccard), counts et taux");
+        System.out.println("  elo   <input> <output> [options]    - Classement Elo joueurs et decks (tri chronologique, checkpoint)");
+        System.out.println("  generate <output_file> [options]    - Jeu de parties synthétiques (Zipf, doublons, JSON invalide)");
+        System.out.println("  bench <workdir> [options]           - Non-régression locale clean/nodes/stats (temps, heap, checksums)");
         System.out.println("  all   <input> <output> [--size=k]   - Pipeline complet (clean + nodes)");
         System.out.println("\nOptions:");
-        System.out.println("  --size=k  : Taille des archétypes (1-8, défaut=8 = deck complet)");
+        System.out.println("  --size=k     : Taille des archétypes (1-8, défaut=8 = deck complet)");
+        System.out.println("  --canonical  : Arêtes stockées une seule fois par paire (min;max), détecté par stats via _summary");
+        System.out.println("  --min-support=n : Élague nœuds/arêtes vus moins de n fois (nAll conservé via _summary)");
+        System.out.println("  --dense-max=k   : Agrégation en tableaux dans le mapper si size <= k (défaut=2, max=3, 0 = désactivé)");
+        System.out.println("  --sample=p      : Échantillon déterministe par paire de joueurs (clean/nodes/frequent), counts remis à l'échelle,");
+        System.out.println("                    stats ajoute taux de victoire et intervalles de confiance à 95%");
+        System.out.println("  --combine=Mo    : clean/nodes/frequent, regroupe les petits fichiers en splits d'au plus Mo (CombineTextInputFormat)");
+        System.out.println("  --combiner-min=f : nodes, une classe de clés (N|, E|) dont le combiner retire moins de f des enregistrements");
+        System.out.println("                    est recopiée sans combinaison aux spills suivants (défaut=0.2, 0 = toujours combiner)");
+        System.out.println("  --map-threads=n : clean/nodes, n threads de parsing par tâche map (MultithreadedMapper, défaut=1) :");
+        System.out.println("                    plus de cœurs par conteneur sans plus de conteneurs (mode dense : un jeu de tableaux par thread)");
+        System.out.println("  <input> de clean/nodes : plusieurs chemins séparés par des virgules, globs acceptés (ex: 'raw/2025-11-11-*.json')");
+        System.out.println("  --cache=dir     : clean/nodes/frequent/slice/stats/topk/lsh, réutilise une sortie déjà calculée (même entrées,");
+        System.out.println("                    options et code, voir _manifest), --cache-max=Mo (défaut=10240, LRU), --force pour recalculer");
+        System.out.println("  --cube=day|week : Nœuds/arêtes partitionnés par temps x trophées (+ rollups 'all')");
+        System.out.println("  --trophy-step=n : Largeur des tranches de trophées du cube (défaut=1000)");
+        System.out.println("  frequent : --min-support=100 (parties), --max-size=8");
+        System.out.println("  slice : --from=/--to= (buckets inclus, ex: 2025-11-11 ou 2025-W46), --min-trophies=/--max-trophies=");
+        System.out.println("  graph : --algo=strength|dominance|cycles, --iterations=10, --threads=n, --min-count=10 (cycles)");
+        System.out.println("  topk  : --top=10, --min-count=10 (parties minimum par duel)");
+        System.out.println("  lsh   : --bands=10, --rows=3 (proba candidat 1-(1-J^rows)^bands), --min-count=1, --max-bucket=1000");
+        System.out.println("  similar : --top=10, --min-jaccard=0.5");
+        System.out.println("  elo   : --checkpoint=file (repris puis mis à jour), --reducers=4, --k-player=32, --k-deck=8, --min-games=20");
+        System.out.println("  generate : --lines=, --seed=, --cards=, --card-skew=, --decks=, --deck-skew=, --players=,");
+        System.out.println("             --dup-rate=, --near-dup-rate=, --malformed-rate=, --days=");
+        System.out.println("  bench : options de generate ou --input=raw, --size=1, --baseline=file [--save-baseline], --tolerance=0.25");
         System.out.println("\nExemples:");
         System.out.println("  Main clean raw_data.json cleaned/");
         System.out.println("  Main nodes cleaned/ output/ --size=4");
+        System.out.println("  Main clean 'raw/2025-11-11-*.json,raw/2025-11-12-*.json' cleaned/ --combine=256");
+        System.out.println("  Main nodes cleaned/ cube/ --size=8 --cube=week");
+        System.out.println("  Main slice cube/ week46_7000/ --from=2025-W46 --to=2025-W46 --min-trophies=7000");
+        System.out.println("  Main elo cleaned/2025-11-11/ elo_11/ --checkpoint=elo.ckpt");
+        System.out.println("  Main generate synth_1M.json --lines=1000000 --seed=7");
+        System.out.println("  Main bench /tmp/bench --lines=200000 --baseline=bench.properties --save-baseline");
         System.out.println("  Main all raw_data.json output/ --size=8");
     }
 }
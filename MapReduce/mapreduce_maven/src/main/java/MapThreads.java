@@ -0,0 +1,69 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.lib.map.MultithreadedMapper;
+
+/**
+ * Mode map multi-thread (--map-threads=n) pour les mappers limités par le CPU (parsing JSON, combinaisons).
+ *
+ * MultithreadedMapper lance n instances du mapper dans la même tâche : chaque thread a ses propres champs
+ * (Gson, tableaux denses...), la lecture du split et l'écriture des sorties sont synchronisées par Hadoop.
+ * L'ordre des sorties n'a pas d'importance, le shuffle les trie. Les compteurs Hadoop ne sont pas
+ * thread-safe : les mappers les cumulent dans un CounterBatch vidé une fois en cleanup.
+ */
+public class MapThreads {
+
+    // Threads par tâche map (1 = mapper classique, sans MultithreadedMapper)
+    public static final String THREADS_KEY = "map.threads";
+
+    private MapThreads() {}
+
+    /**
+     * Déclare le mapper du job, enveloppé dans MultithreadedMapper si THREADS_KEY > 1.
+     */
+    public static void configure(Job job, Class<? extends Mapper<Object, Text, Text, Text>> mapperClass) {
+        int threads = job.getConfiguration().getInt(THREADS_KEY, 1);
+        if (threads > 1) {
+            job.setMapperClass(MultithreadedMapper.class);
+            MultithreadedMapper.setMapperClass(job, mapperClass);
+            MultithreadedMapper.setNumberOfThreads(job, threads);
+        } else {
+            job.setMapperClass(mapperClass);
+        }
+    }
+
+    /**
+     * Compteurs cumulés localement par un mapper, publiés en une fois par flush().
+     * Évite aussi une recherche de compteur par enregistrement en mode classique.
+     */
+    static class CounterBatch {
+        private final Map<Enum<?>, long[]> values = new HashMap<>();
+
+        void increment(Enum<?> counter) {
+            increment(counter, 1);
+        }
+
+        void increment(Enum<?> counter, long amount) {
+            long[] value = values.get(counter);
+            if (value == null) {
+                value = new long[1];
+                values.put(counter, value);
+            }
+            value[0] += amount;
+        }
+
+        void flush(TaskInputOutputContext<?, ?, ?, ?> context) {
+            // Les threads d'une même tâche partagent les mêmes objets Counter
+            synchronized (CounterBatch.class) {
+                for (Map.Entry<Enum<?>, long[]> e : values.entrySet()) {
+                    context.getCounter(e.getKey()).increment(e.getValue()[0]);
+                }
+            }
+            values.clear();
+        }
+    }
+}
@@ -0,0 +1,468 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Graphe des matchups chargé en mémoire au format CSR (compressed sparse row) à partir de la
+ * sortie de NodesAndEdges (nodes-r-*, edges-r-*), pour les analyses itératives qui coûteraient
+ * un job MapReduce par itération.
+ *
+ * Les archétypes sont internés en entiers 0..n-1. Le graphe est stocké non orienté : la ligne
+ * d'un sommet v contient chaque adversaire u avec le nombre de parties v contre u et le nombre
+ * de victoires de v (les victoires de u sont count - wins). Tout est en tableaux primitifs.
+ */
+public class MatchupGraph {
+
+    public static final String ALGO_STRENGTH = "strength";
+    public static final String ALGO_DOMINANCE = "dominance";
+    public static final String ALGO_CYCLES = "cycles";
+
+    // Sommets
+    final String[] names;
+    final long[] nodeCounts;
+    final long[] nodeWins;
+
+    // CSR : les adversaires de v sont targets[offsets[v] .. offsets[v+1][, triés par id
+    final int[] offsets;
+    final int[] targets;
+    final long[] counts;
+    final long[] wins;
+
+    private MatchupGraph(String[] names, long[] nodeCounts, long[] nodeWins,
+                         int[] offsets, int[] targets, long[] counts, long[] wins) {
+        this.names = names;
+        this.nodeCounts = nodeCounts;
+        this.nodeWins = nodeWins;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.counts = counts;
+        this.wins = wins;
+    }
+
+    public int nodeCount() { return names.length; }
+
+    public int edgeCount() { return targets.length; }
+
+    // --- CHARGEMENT ---
+
+    /**
+     * Charge le graphe depuis un dossier de sortie NodesAndEdges (ou une tranche de cube).
+     * Les arêtes canoniques (--canonical) et dirigées donnent le même graphe non orienté.
+     */
+    public static MatchupGraph load(String dir, Configuration conf) throws IOException {
+        Path dirPath = new Path(dir);
+        FileSystem fs = dirPath.getFileSystem(conf);
+
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        LongList nodeCounts = new LongList();
+        LongList nodeWins = new LongList();
+
+        // Nœuds : archetype;count;wins
+        for (FileStatus file : listParts(fs, dirPath, "nodes-r-*")) {
+            try (BufferedReader reader = open(fs, file.getPath())) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split(";");
+                    if (parts.length < 3) continue;
+                    int id = intern(parts[0], ids, names, nodeCounts, nodeWins);
+                    nodeCounts.set(id, Long.parseLong(parts[1].trim()));
+                    nodeWins.set(id, Long.parseLong(parts[2].trim()));
+                }
+            }
+        }
+
+        // Arêtes : source;target;count;wins, chaque ligne alimente les deux lignes du CSR
+        IntList src = new IntList();
+        IntList dst = new IntList();
+        LongList edgeCounts = new LongList();
+        LongList edgeWins = new LongList();
+        for (FileStatus file : listParts(fs, dirPath, "edges-r-*")) {
+            try (BufferedReader reader = open(fs, file.getPath())) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split(";");
+                    if (parts.length < 4) continue;
+                    int a = intern(parts[0], ids, names, nodeCounts, nodeWins);
+                    int b = intern(parts[1], ids, names, nodeCounts, nodeWins);
+                    long count = Long.parseLong(parts[2].trim());
+                    long win = Long.parseLong(parts[3].trim());
+
+                    src.add(a); dst.add(b); edgeCounts.add(count); edgeWins.add(win);
+                    if (a != b) {
+                        src.add(b); dst.add(a); edgeCounts.add(count); edgeWins.add(count - win);
+                    }
+                }
+            }
+        }
+
+        return build(names.toArray(new String[0]), nodeCounts.toArray(), nodeWins.toArray(),
+                     src, dst, edgeCounts, edgeWins);
+    }
+
+    private static int intern(String name, Map<String, Integer> ids, List<String> names,
+                              LongList nodeCounts, LongList nodeWins) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+            nodeCounts.add(0);
+            nodeWins.add(0);
+        }
+        return id;
+    }
+
+    /**
+     * Tri par comptage sur la source, puis tri de chaque ligne par cible en fusionnant les doublons
+     * (A->B et B->A d'une sortie dirigée tombent sur la même case).
+     */
+    private static MatchupGraph build(String[] names, long[] nodeCounts, long[] nodeWins,
+                                      IntList src, IntList dst, LongList edgeCounts, LongList edgeWins) {
+        int n = names.length;
+        int m = src.size();
+
+        int[] start = new int[n + 1];
+        for (int i = 0; i < m; i++) start[src.get(i) + 1]++;
+        for (int v = 0; v < n; v++) start[v + 1] += start[v];
+
+        int[] fill = Arrays.copyOf(start, n);
+        int[] rawTargets = new int[m];
+        long[] rawCounts = new long[m];
+        long[] rawWins = new long[m];
+        for (int i = 0; i < m; i++) {
+            int pos = fill[src.get(i)]++;
+            rawTargets[pos] = dst.get(i);
+            rawCounts[pos] = edgeCounts.get(i);
+            rawWins[pos] = edgeWins.get(i);
+        }
+
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        long[] counts = new long[m];
+        long[] wins = new long[m];
+        int out = 0;
+        for (int v = 0; v < n; v++) {
+            offsets[v] = out;
+            int from = start[v];
+            int len = start[v + 1] - from;
+            // clé = (cible << 32) | position : trie par cible sans objets
+            long[] order = new long[len];
+            for (int j = 0; j < len; j++) {
+                order[j] = ((long) rawTargets[from + j] << 32) | j;
+            }
+            Arrays.sort(order);
+            for (int j = 0; j < len; j++) {
+                int pos = from + (int) order[j];
+                int target = rawTargets[pos];
+                if (out > offsets[v] && targets[out - 1] == target) {
+                    counts[out - 1] += rawCounts[pos];
+                    wins[out - 1] += rawWins[pos];
+                } else {
+                    targets[out] = target;
+                    counts[out] = rawCounts[pos];
+                    wins[out] = rawWins[pos];
+                    out++;
+                }
+            }
+        }
+        offsets[n] = out;
+
+        return new MatchupGraph(names, nodeCounts, nodeWins, offsets,
+                                Arrays.copyOf(targets, out), Arrays.copyOf(counts, out), Arrays.copyOf(wins, out));
+    }
+
+    // --- RUNTIME MULTI-THREAD ---
+
+    /**
+     * Travail sur une plage de sommets [from, to[. Retourne une valeur partielle (somme) ou 0.
+     */
+    interface RangeTask {
+        double run(int from, int to);
+    }
+
+    /**
+     * Exécute une tâche en parallèle sur tous les sommets, découpés en blocs contigus.
+     * Chaque bloc écrit dans des cases disjointes : aucune synchronisation pendant l'itération.
+     * Retourne la somme des valeurs partielles.
+     */
+    static double parallelFor(ExecutorService pool, int threads, int n, RangeTask task) throws Exception {
+        int chunks = Math.max(1, Math.min(n, threads * 4));
+        List<Future<Double>> futures = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int from = (int) ((long) n * c / chunks);
+            final int to = (int) ((long) n * (c + 1) / chunks);
+            futures.add(pool.submit(() -> task.run(from, to)));
+        }
+        double total = 0;
+        for (Future<Double> f : futures) {
+            total += f.get();
+        }
+        return total;
+    }
+
+    // --- ALGORITHMES ---
+
+    /**
+     * Force "méta" façon PageRank : chaque défaite transmet du score au vainqueur.
+     * score'(v) = (1-d)/n + d * (somme_u score(u) * victoires(v sur u) / défaites(u) + pendants/n)
+     */
+    public double[] metaStrength(int iterations, double damping, ExecutorService pool, int threads) throws Exception {
+        final int n = nodeCount();
+        final double[] losses = new double[n];
+        parallelFor(pool, threads, n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                long l = 0;
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) l += counts[e] - wins[e];
+                losses[v] = l;
+            }
+            return 0;
+        });
+
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+
+        for (int it = 0; it < iterations; it++) {
+            final double[] cur = rank;
+            final double[] nxt = next;
+            // Masse des sommets sans défaite : redistribuée uniformément
+            double dangling = parallelFor(pool, threads, n, (from, to) -> {
+                double sum = 0;
+                for (int u = from; u < to; u++) if (losses[u] == 0) sum += cur[u];
+                return sum;
+            });
+            final double base = (1 - damping) / n + damping * dangling / n;
+            double delta = parallelFor(pool, threads, n, (from, to) -> {
+                double diff = 0;
+                for (int v = from; v < to; v++) {
+                    double sum = 0;
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int u = targets[e];
+                        if (losses[u] > 0) sum += cur[u] * wins[e] / losses[u];
+                    }
+                    nxt[v] = base + damping * sum;
+                    diff += Math.abs(nxt[v] - cur[v]);
+                }
+                return diff;
+            });
+            rank = nxt;
+            next = cur;
+            System.out.println(String.format("    itération %d : delta=%.3e", it + 1, delta));
+        }
+        return rank;
+    }
+
+    /**
+     * Classement de dominance Bradley-Terry (algorithme MM) : P(v bat u) = p_v / (p_v + p_u).
+     * Un adversaire virtuel de force 1 (prior victoires/défaites) évite les forces nulles ou infinies.
+     * Les forces sont renormalisées à une moyenne géométrique de 1.
+     */
+    public double[] dominance(int iterations, double prior, ExecutorService pool, int threads) throws Exception {
+        final int n = nodeCount();
+        double[] p = new double[n];
+        double[] next = new double[n];
+        Arrays.fill(p, 1.0);
+
+        for (int it = 0; it < iterations; it++) {
+            final double[] cur = p;
+            final double[] nxt = next;
+            double logSum = parallelFor(pool, threads, n, (from, to) -> {
+                double sum = 0;
+                for (int v = from; v < to; v++) {
+                    double w = prior;
+                    double denom = 2 * prior / (cur[v] + 1);
+                    for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                        int u = targets[e];
+                        if (u == v) continue; // miroir : n'apporte aucune information
+                        w += wins[e];
+                        denom += counts[e] / (cur[v] + cur[u]);
+                    }
+                    nxt[v] = w / denom;
+                    sum += Math.log(nxt[v]);
+                }
+                return sum;
+            });
+            final double scale = Math.exp(-logSum / n);
+            double delta = parallelFor(pool, threads, n, (from, to) -> {
+                double diff = 0;
+                for (int v = from; v < to; v++) {
+                    nxt[v] *= scale;
+                    diff += Math.abs(nxt[v] - cur[v]);
+                }
+                return diff;
+            });
+            p = nxt;
+            next = cur;
+            System.out.println(String.format("    itération %d : delta=%.3e", it + 1, delta));
+        }
+        return p;
+    }
+
+    /**
+     * Cycles de contres A > B > C > A (taux de victoire > 50% sur au moins minCount parties pour
+     * chaque duel). Chaque cycle est rapporté une fois, depuis son sommet de plus petit id.
+     * Retourne des lignes "A;B;C;wrAB;wrBC;wrCA".
+     */
+    public List<String> counterCycles(final long minCount, ExecutorService pool, int threads) throws Exception {
+        final int n = nodeCount();
+        final List<List<String>> partials = Collections.synchronizedList(new ArrayList<List<String>>());
+        parallelFor(pool, threads, n, (from, to) -> {
+            List<String> local = new ArrayList<>();
+            for (int a = from; a < to; a++) {
+                for (int e1 = offsets[a]; e1 < offsets[a + 1]; e1++) {
+                    int b = targets[e1];
+                    if (b <= a || !beats(e1, minCount)) continue;
+                    for (int e2 = offsets[b]; e2 < offsets[b + 1]; e2++) {
+                        int c = targets[e2];
+                        if (c <= a || c == b || !beats(e2, minCount)) continue;
+                        int e3 = Arrays.binarySearch(targets, offsets[c], offsets[c + 1], a);
+                        if (e3 >= 0 && beats(e3, minCount)) {
+                            local.add(names[a] + ";" + names[b] + ";" + names[c] + ";"
+                                      + rate(e1) + ";" + rate(e2) + ";" + rate(e3));
+                        }
+                    }
+                }
+            }
+            partials.add(local);
+            return 0;
+        });
+        List<String> result = new ArrayList<>();
+        for (List<String> local : partials) result.addAll(local);
+        Collections.sort(result);
+        return result;
+    }
+
+    private boolean beats(int e, long minCount) {
+        return counts[e] >= minCount && 2 * wins[e] > counts[e];
+    }
+
+    private String rate(int e) {
+        return String.format("%.3f", (double) wins[e] / counts[e]).replace(',', '.');
+    }
+
+    // --- Runner ---
+
+    static boolean isKnownAlgo(String algo) {
+        return ALGO_STRENGTH.equals(algo) || ALGO_DOMINANCE.equals(algo) || ALGO_CYCLES.equals(algo);
+    }
+
+    /**
+     * Charge le graphe, exécute l'algorithme demandé et écrit le résultat dans un fichier texte.
+     * strength/dominance : archetype;score;count;wins trié par score décroissant.
+     * cycles             : A;B;C;wrAB;wrBC;wrCA.
+     */
+    public static boolean run(String inputDir, String outputFile, String algo, int iterations, int threads,
+                              double damping, long minCount) throws Exception {
+        // Avant le chargement et la création (troncature) du fichier de sortie
+        if (!isKnownAlgo(algo)) {
+            System.err.println("Erreur: algorithme inconnu '" + algo + "'");
+            return false;
+        }
+        if (threads < 1) {
+            System.err.println("Erreur: --threads doit être >= 1 (reçu " + threads + ")");
+            return false;
+        }
+        Configuration conf = new Configuration();
+
+        long start = System.currentTimeMillis();
+        MatchupGraph graph = load(inputDir, conf);
+        System.out.println(">>> Graphe chargé : " + graph.nodeCount() + " archétypes, " + graph.edgeCount()
+                           + " adjacences (" + (System.currentTimeMillis() - start) + " ms)");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            start = System.currentTimeMillis();
+            Path outPath = new Path(outputFile);
+            FileSystem fs = outPath.getFileSystem(conf);
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(fs.create(outPath, true), StandardCharsets.UTF_8))) {
+                if (ALGO_CYCLES.equals(algo)) {
+                    List<String> cycles = graph.counterCycles(minCount, pool, threads);
+                    for (String line : cycles) out.println(line);
+                    System.out.println(">>> Cycles trouvés : " + cycles.size());
+                } else {
+                    double[] scores;
+                    if (ALGO_STRENGTH.equals(algo)) {
+                        scores = graph.metaStrength(iterations, damping, pool, threads);
+                    } else {
+                        scores = graph.dominance(iterations, 1.0, pool, threads);
+                    }
+                    writeScores(graph, scores, out);
+                }
+            }
+            System.out.println(">>> " + algo + " calculé en " + (System.currentTimeMillis() - start) + " ms ("
+                               + threads + " threads)");
+        } finally {
+            pool.shutdown();
+        }
+        return true;
+    }
+
+    private static void writeScores(MatchupGraph graph, final double[] scores, PrintWriter out) {
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        for (int v : order) {
+            out.println(graph.names[v] + ";" + String.format("%.6g", scores[v]).replace(',', '.') + ";"
+                        + graph.nodeCounts[v] + ";" + graph.nodeWins[v]);
+        }
+    }
+
+    private static FileStatus[] listParts(FileSystem fs, Path dir, String pattern) throws IOException {
+        FileStatus[] statuses = fs.globStatus(new Path(dir, pattern));
+        return statuses == null ? new FileStatus[0] : statuses;
+    }
+
+    private static BufferedReader open(FileSystem fs, Path path) throws IOException {
+        return new BufferedReader(new InputStreamReader(fs.open(path), StandardCharsets.UTF_8));
+    }
+
+    // --- Tableaux primitifs extensibles (évite les List<Integer>/List<Long> au chargement) ---
+
+    static class IntList {
+        private int[] data = new int[1024];
+        private int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int get(int i) { return data[i]; }
+
+        int size() { return size; }
+    }
+
+    static class LongList {
+        private long[] data = new long[1024];
+        private int size;
+
+        void add(long v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        void set(int i, long v) { data[i] = v; }
+
+        long get(int i) { return data[i]; }
+
+        long[] toArray() { return Arrays.copyOf(data, size); }
+    }
+}
@@ -1,18 +1,28 @@
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobCounter;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskCounter;
 import org.apache.hadoop.mapreduce.Counters;
-import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 
@@ -29,91 +39,299 @@ public class NodesAndEdges {
 
     public static final String ARCHETYPE_SIZE_KEY = "archetype.size";
     public static final int DEFAULT_ARCHETYPE_SIZE = 8;
+    // Arêtes canoniques : chaque paire non ordonnée {A,B} est stockée une seule fois (A <= B)
+    public static final String CANONICAL_EDGES_KEY = "edges.canonical";
+    // Support minimal : les nœuds/arêtes vus moins de N fois ne sont pas écrits (0 = pas d'élagage)
+    public static final String MIN_SUPPORT_KEY = "archetype.min.support";
+    // Fichier récapitulatif écrit à côté des sorties (ignoré par FileInputFormat grâce au "_")
+    public static final String SUMMARY_FILE = "_summary";
+    // Agrégation dense (tableaux indexés par rang combinatoire) pour les archétypes de taille <= N
+    public static final String DENSE_MAX_SIZE_KEY = "archetype.dense.maxsize";
+    public static final int DEFAULT_DENSE_MAX_SIZE = 2;
+    // Au-delà, les tableaux C(256,k) ne tiennent plus dans un mapper (k=4 : ~174M entrées par tableau)
+    public static final int MAX_DENSE_SIZE = 3;
+    // Nombre max d'arêtes distinctes gardées en mémoire avant de vider la table dans le contexte
+    public static final String DENSE_FLUSH_KEY = "archetype.dense.flush.entries";
+    public static final int DEFAULT_DENSE_FLUSH = 1 << 20;
+    // Cube : agrégation par bucket de temps ("day" ou "week") x tranche de trophées, avec rollups "all"
+    public static final String CUBE_TIME_BUCKET_KEY = "cube.time.bucket";
+    public static final String CUBE_TROPHY_STEP_KEY = "cube.trophy.step";
+    public static final int DEFAULT_TROPHY_STEP = 1000;
+    public static final String CUBE_ALL = "all";
+    // Combiner adaptatif : une classe de clés (N|, E|) qui perd moins de cette fraction de ses enregistrements
+    // est recopiée sans combinaison aux spills suivants (0 = toujours combiner), décision après WARMUP entrées
+    public static final String COMBINER_MIN_REDUCTION_KEY = "combiner.min.reduction";
+    public static final double DEFAULT_COMBINER_MIN_REDUCTION = 0.2;
+    public static final String COMBINER_WARMUP_KEY = "combiner.warmup.records";
+    public static final long DEFAULT_COMBINER_WARMUP = 10000;
+    // Au-delà de cette taille (U*U), la matrice des arêtes est remplacée par une table de hachage
+    private static final long DENSE_MATRIX_LIMIT = 1 << 16;
 
     // --- COMPTEURS PERSONNALISÉS ---
     public enum Counters {
-        GAMES_PROCESSED, INVALID_GAMES,
+        GAMES_PROCESSED, INVALID_GAMES, SAMPLED_OUT,
         // Mapper
         MAPPER_NODES_EMITTED, MAPPER_EDGES_EMITTED,
-        // Combiner
+        // Combiner (enregistrements recopiés sans combinaison quand la classe est contournée)
         COMBINER_NODES_EMITTED, COMBINER_EDGES_EMITTED,
+        COMBINER_BYPASSED_NODES, COMBINER_BYPASSED_EDGES, COMBINER_BYTES_SAVED,
         // Reducer (final)
-        REDUCER_NODES_WRITTEN, REDUCER_EDGES_WRITTEN
+        REDUCER_NODES_WRITTEN, REDUCER_EDGES_WRITTEN,
+        // Élagage --min-support (la masse des arêtes élaguées reste comptée dans EDGES_TOTAL_COUNT)
+        PRUNED_NODES, PRUNED_EDGES, EDGES_TOTAL_COUNT, PRUNED_EDGES_COUNT
     }
 
     // --- MAPPER ---
     public static class ArchetypeMapper extends Mapper<Object, Text, Text, Text> {
-        private static final Gson gson = new Gson();
+        // Par instance : une instance par thread en mode --map-threads
+        private final Gson gson = new Gson();
+        private final MapThreads.CounterBatch counters = new MapThreads.CounterBatch();
         private int archetypeSize;
+        private boolean canonicalEdges;
+        private String timeBucket;      // null si pas de cube
+        private int trophyStep;
+        private double sampleRate;
+
+        // Mode dense : compteurs indexés par rang combinatoire, émis une seule fois en fin de tâche
+        private boolean dense;
+        private int universe;
+        private int flushThreshold;
+        private long[] nodeCounts;
+        private long[] nodeWins;
+        private long[] edgeCounts;      // matrice universe x universe (petits univers, k=1)
+        private long[] edgeWins;
+        private LongCounterMap edgeMap; // table creuse sinon (k=2 : 32640² paires possibles)
 
         // Initialisation du Mapper (pernmet de configurer la taille des archétypes)
         @Override
         protected void setup(Context context) {
             archetypeSize = context.getConfiguration().getInt(ARCHETYPE_SIZE_KEY, DEFAULT_ARCHETYPE_SIZE);
+            canonicalEdges = context.getConfiguration().getBoolean(CANONICAL_EDGES_KEY, false);
+            timeBucket = context.getConfiguration().get(CUBE_TIME_BUCKET_KEY);
+            trophyStep = context.getConfiguration().getInt(CUBE_TROPHY_STEP_KEY, DEFAULT_TROPHY_STEP);
+            sampleRate = context.getConfiguration().getDouble(Sampling.SAMPLE_RATE_KEY, 1.0);
+
+            int denseMaxSize = context.getConfiguration().getInt(DENSE_MAX_SIZE_KEY, DEFAULT_DENSE_MAX_SIZE);
+            // Le cube préfixe les clés par ses dimensions : pas de tableaux denses dans ce mode
+            dense = timeBucket == null && useDense(archetypeSize, denseMaxSize);
+            if (dense) {
+                universe = (int) CardDictionary.universeSize(archetypeSize);
+                flushThreshold = context.getConfiguration().getInt(DENSE_FLUSH_KEY, DEFAULT_DENSE_FLUSH);
+                nodeCounts = new long[universe];
+                nodeWins = new long[universe];
+                if ((long) universe * universe <= DENSE_MATRIX_LIMIT) {
+                    edgeCounts = new long[universe * universe];
+                    edgeWins = new long[universe * universe];
+                } else {
+                    edgeMap = new LongCounterMap(1 << 16);
+                }
+            }
         }
 
         @Override
         public void map(Object key, Text value, Context context) throws IOException, InterruptedException {
-            Game game;
-            try {
-                game = gson.fromJson(value.toString(), Game.class);
-            } catch (Exception e) {
-                context.getCounter(Counters.INVALID_GAMES).increment(1);
-                return;
-            }
-
-            if (game == null || game.getPlayers() == null || game.getPlayers().size() != 2) {
-                context.getCounter(Counters.INVALID_GAMES).increment(1);
-                return;
-            }
-
-            context.getCounter(Counters.GAMES_PROCESSED).increment(1);
+            Game game = readGame(value, gson, sampleRate, counters);
+            if (game == null) return;
 
             Player p0 = game.getPlayers().get(0);
             Player p1 = game.getPlayers().get(1);
             int winner = game.getWinner(); // 0 = joueur 0 gagne, 1 = joueur 1 gagne
 
-            // recupérer les cartes des joueurs
-            String[] cards0 = p0.getCards();
-            String[] cards1 = p1.getCards();
+            // Cartes triées (minuscules) : représentation canonique
+            String[] cards0 = sortedCards(p0);
+            String[] cards1 = sortedCards(p1);
 
-            if (cards0 == null || cards1 == null) {
-                context.getCounter(Counters.INVALID_GAMES).increment(1);
-                return;
-            }
+            int win0 = (winner == 0) ? 1 : 0;
+            int win1 = (winner == 1) ? 1 : 0;
 
-            // Trier les cartes pour avoir une représentation canonique
-            Arrays.sort(cards0);
-            Arrays.sort(cards1);
+            // Petits archétypes : agrégation dans les tableaux, rien n'est émis ici
+            if (dense) {
+                int[] ids0 = CardDictionary.sortedIds(cards0);
+                int[] ids1 = CardDictionary.sortedIds(cards1);
+                // Un deck avec une carte en double n'a pas de rang : il passe par les chaînes
+                if (ids0 != null && ids1 != null) {
+                    aggregateDense(ids0, ids1, win0, win1, context);
+                    return;
+                }
+            }
 
             // Générer tous les archétypes de taille k (pour les nœuds ET les arêtes)
             List<String> archetypes0 = generateArchetypes(cards0, archetypeSize);
             List<String> archetypes1 = generateArchetypes(cards1, archetypeSize);
 
-            // --- ÉMETTRE LES NŒUDS ---
-            int win0 = (winner == 0) ? 1 : 0;
-            for (String arch : archetypes0) {
-                // Format: "N|archetype" -> "count,wins"
-                context.write(new Text("N|" + arch), new Text("1," + win0));
-                context.getCounter(Counters.MAPPER_NODES_EMITTED).increment(1);
+            // Cellules du cube où la partie est comptée (préfixe vide hors cube)
+            String[] cells = (timeBucket == null) ? new String[]{""} : cubeCells(game, p0, p1);
+
+            for (String cell : cells) {
+                // --- ÉMETTRE LES NŒUDS ---
+                for (String arch : archetypes0) {
+                    // Format: "N|archetype" -> "count,wins"
+                    context.write(new Text("N|" + cell + arch), new Text("1," + win0));
+                    counters.increment(Counters.MAPPER_NODES_EMITTED);
+                }
+
+                for (String arch : archetypes1) {
+                    context.write(new Text("N|" + cell + arch), new Text("1," + win1));
+                    counters.increment(Counters.MAPPER_NODES_EMITTED);
+                }
+
+                // --- ÉMETTRE LES ARÊTES ---
+                // Émettre une arête pour chaque paire d'archétypes (arch0, arch1)
+                for (String arch0 : archetypes0) {
+                    for (String arch1 : archetypes1) {
+                        // Format: "E|source|target" -> "count,wins"
+                        String edgeKey;
+                        int wins;
+                        if (canonicalEdges && arch0.compareTo(arch1) > 0) {
+                            // Orientation canonique (min, max) : on compte les victoires du plus petit
+                            edgeKey = "E|" + cell + arch1 + "|" + arch0;
+                            wins = win1;
+                        } else {
+                            edgeKey = "E|" + cell + arch0 + "|" + arch1;
+                            wins = win0;
+                        }
+                        context.write(new Text(edgeKey), new Text("1," + wins));
+                        counters.increment(Counters.MAPPER_EDGES_EMITTED);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Préfixes "temps|trophées|" des 4 cellules du cube touchées par une partie :
+         * la cellule fine et ses rollups (temps, all), (all, trophées), (all, all).
+         * La tranche de trophées d'une partie est celle du joueur le moins classé,
+         * ainsi "tranche >= 7000" signifie "les deux joueurs ont au moins 7000 trophées".
+         */
+        private String[] cubeCells(Game game, Player p0, Player p1) {
+            String t = timeBucket(game.getDate(), timeBucket);
+            int minTrophies = Math.min(p0.getTrophies(), p1.getTrophies());
+            String b = String.valueOf((minTrophies / trophyStep) * trophyStep);
+            return new String[]{
+                t + "|" + b + "|",
+                t + "|" + CUBE_ALL + "|",
+                CUBE_ALL + "|" + b + "|",
+                CUBE_ALL + "|" + CUBE_ALL + "|"
+            };
+        }
+
+        /**
+         * Ajoute une partie aux compteurs denses (nœuds par rang, arêtes par couple de rangs).
+         * Les arêtes sont gardées dans le sens joueur 0 -> joueur 1, l'orientation
+         * canonique éventuelle est appliquée à l'émission.
+         */
+        private void aggregateDense(int[] ids0, int[] ids1, int win0, int win1, Context context)
+                throws IOException, InterruptedException {
+            long[] ranks0 = generateRanks(ids0, archetypeSize);
+            long[] ranks1 = generateRanks(ids1, archetypeSize);
+
+            for (long r : ranks0) {
+                nodeCounts[(int) r]++;
+                nodeWins[(int) r] += win0;
+            }
+            for (long r : ranks1) {
+                nodeCounts[(int) r]++;
+                nodeWins[(int) r] += win1;
             }
 
-            int win1 = (winner == 1) ? 1 : 0;
-            for (String arch : archetypes1) {
-                context.write(new Text("N|" + arch), new Text("1," + win1));
-                context.getCounter(Counters.MAPPER_NODES_EMITTED).increment(1);
-            }
-
-            // --- ÉMETTRE LES ARÊTES ---
-            // Émettre une arête pour chaque paire d'archétypes (arch0, arch1)
-            for (String arch0 : archetypes0) {
-                for (String arch1 : archetypes1) {
-                    // Format: "E|source|target" -> "count,wins"
-                    String edgeKey = "E|" + arch0 + "|" + arch1;
-                    context.write(new Text(edgeKey), new Text("1," + win0));
-                    context.getCounter(Counters.MAPPER_EDGES_EMITTED).increment(1);
+            for (long r0 : ranks0) {
+                for (long r1 : ranks1) {
+                    if (edgeMap == null) {
+                        int cell = (int) (r0 * universe + r1);
+                        edgeCounts[cell]++;
+                        edgeWins[cell] += win0;
+                    } else {
+                        edgeMap.add(r0 * universe + r1, 1, win0);
+                    }
+                }
+            }
+
+            // Mémoire bornée : on vide la table creuse si elle devient trop grosse
+            if (edgeMap != null && edgeMap.size() > flushThreshold) {
+                flushDenseEdges(context);
+            }
+        }
+
+        /**
+         * Rangs combinatoires de toutes les combinaisons de k cartes parmi les ids triés.
+         * Le rang est accumulé pendant la récursion : C(c1,1) + C(c2,2) + ...
+         */
+        private long[] generateRanks(int[] ids, int k) {
+            long[] ranks = new long[(int) CardDictionary.binomial(ids.length, k)];
+            generateRanks(ids, k, 0, 0, 0L, ranks, new int[]{0});
+            return ranks;
+        }
+
+        private void generateRanks(int[] ids, int k, int start, int index, long partial,
+                                   long[] ranks, int[] next) {
+            if (index == k) {
+                ranks[next[0]++] = partial;
+                return;
+            }
+            for (int i = start; i <= ids.length - (k - index); i++) {
+                generateRanks(ids, k, i + 1, index + 1, partial + CardDictionary.binomial(ids[i], index + 1),
+                              ranks, next);
+            }
+        }
+
+        /**
+         * Écrit une arête dense dans le contexte, en appliquant l'orientation canonique si demandée.
+         */
+        private void writeDenseEdge(long r0, long r1, long count, long wins, Context context)
+                throws IOException, InterruptedException {
+            String arch0 = CardDictionary.archetype(r0, archetypeSize);
+            String arch1 = CardDictionary.archetype(r1, archetypeSize);
+            String edgeKey;
+            if (canonicalEdges && arch0.compareTo(arch1) > 0) {
+                edgeKey = "E|" + arch1 + "|" + arch0;
+                wins = count - wins;
+            } else {
+                edgeKey = "E|" + arch0 + "|" + arch1;
+            }
+            context.write(new Text(edgeKey), new Text(count + "," + wins));
+            counters.increment(Counters.MAPPER_EDGES_EMITTED);
+        }
+
+        private void flushDenseEdges(Context context) throws IOException, InterruptedException {
+            for (int slot = 0; slot < edgeMap.capacity(); slot++) {
+                if (edgeMap.isUsed(slot)) {
+                    long cell = edgeMap.keyAt(slot);
+                    writeDenseEdge(cell / universe, cell % universe, edgeMap.countAt(slot), edgeMap.winsAt(slot), context);
+                }
+            }
+            edgeMap.clear();
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            if (dense) {
+                writeDense(context);
+            }
+            counters.flush(context);
+        }
+
+        /**
+         * En mode dense, émet une fois par tâche les compteurs non nuls (format identique au mode chaîne).
+         */
+        private void writeDense(Context context) throws IOException, InterruptedException {
+
+            for (int r = 0; r < universe; r++) {
+                if (nodeCounts[r] > 0) {
+                    context.write(new Text("N|" + CardDictionary.archetype(r, archetypeSize)),
+                                  new Text(nodeCounts[r] + "," + nodeWins[r]));
+                    counters.increment(Counters.MAPPER_NODES_EMITTED);
                 }
             }
+
+            if (edgeMap == null) {
+                for (int cell = 0; cell < edgeCounts.length; cell++) {
+                    if (edgeCounts[cell] > 0) {
+                        writeDenseEdge(cell / universe, cell % universe, edgeCounts[cell], edgeWins[cell], context);
+                    }
+                }
+            } else {
+                flushDenseEdges(context);
+            }
         }
 
         /**
@@ -150,38 +368,171 @@ public class NodesAndEdges {
         }
     }
 
+    /**
+     * Lecture commune aux mappers d'archétypes (nodes, frequent) : JSON, deux joueurs, vainqueur 0 ou 1, même échantillon
+     * que clean --sample (sans effet si l'entrée est déjà échantillonnée), deck des deux joueurs présent.
+     * Retourne null, compteur à jour, si la partie est écartée.
+     */
+    static Game readGame(Text value, Gson gson, double sampleRate, MapThreads.CounterBatch counters) {
+        Game game;
+        try {
+            game = gson.fromJson(value.toString(), Game.class);
+        } catch (Exception e) {
+            counters.increment(Counters.INVALID_GAMES);
+            return null;
+        }
+
+        if (game == null || game.getPlayers() == null || game.getPlayers().size() != 2) {
+            counters.increment(Counters.INVALID_GAMES);
+            return null;
+        }
+
+        // Vainqueur 0 ou 1 : le mode dense déduit les victoires de l'autre joueur (count - wins), une égalité
+        // ou une valeur hors bornes y compterait comme une victoire et comme une défaite en mode texte
+        if (game.getWinner() != 0 && game.getWinner() != 1) {
+            counters.increment(Counters.INVALID_GAMES);
+            return null;
+        }
+
+        if (sampleRate < 1.0) {
+            String pairKey = game.isValid() ? game.getPlayerPairKey() : null;
+            if (pairKey == null || !Sampling.keep(pairKey, sampleRate)) {
+                counters.increment(Counters.SAMPLED_OUT);
+                return null;
+            }
+        }
+
+        counters.increment(Counters.GAMES_PROCESSED);
+
+        if (game.getPlayers().get(0).getCards() == null || game.getPlayers().get(1).getCards() == null) {
+            counters.increment(Counters.INVALID_GAMES);
+            return null;
+        }
+        return game;
+    }
+
+    /**
+     * Les 8 cartes d'un joueur (minuscules, cf. Player.getCards) triées : clé canonique des archétypes.
+     */
+    static String[] sortedCards(Player player) {
+        String[] cards = player.getCards();
+        Arrays.sort(cards);
+        return cards;
+    }
+
     // --- COMBINER ---
     public static class ArchetypeCombiner extends Reducer<Text, Text, Text, Text> {
         /* Permet de sommer les counts et wins pour chaque clé intermédiaire
         * Cela réduit le trafic réseau entre le Mapper et le Reducer final.
+        *
+        * Adaptatif : le combiner est relancé à chaque spill, il garde donc (par JVM et par job) le taux de
+        * réduction observé pour chaque classe de clés (N| et E|). Une classe qui perd moins de
+        * COMBINER_MIN_REDUCTION_KEY de ses enregistrements après COMBINER_WARMUP_KEY entrées est
+        * recopiée telle quelle aux spills suivants (pas de parsing ni de reformatage des valeurs).
         */
+        private static final int NODE = 0;
+        private static final int EDGE = 1;
+        // État partagé par les spills de la JVM, remis à zéro quand le job change (LocalJobRunner)
+        private static String trackedJob;
+        private static final long[] seenIn = new long[2];
+        private static final long[] seenOut = new long[2];
+        private static final boolean[] bypassed = new boolean[2];
+
+        private double minReduction;
+        private long warmup;
+        private final boolean[] bypass = new boolean[2];
+        private final long[] in = new long[2];
+        private final long[] out = new long[2];
+        private final Text result = new Text();
+
+        @Override
+        protected void setup(Context context) {
+            minReduction = context.getConfiguration().getDouble(COMBINER_MIN_REDUCTION_KEY, DEFAULT_COMBINER_MIN_REDUCTION);
+            warmup = context.getConfiguration().getLong(COMBINER_WARMUP_KEY, DEFAULT_COMBINER_WARMUP);
+            synchronized (ArchetypeCombiner.class) {
+                String job = context.getJobID().toString();
+                if (!job.equals(trackedJob)) {
+                    trackedJob = job;
+                    Arrays.fill(seenIn, 0);
+                    Arrays.fill(seenOut, 0);
+                    Arrays.fill(bypassed, false);
+                }
+                bypass[NODE] = bypassed[NODE];
+                bypass[EDGE] = bypassed[EDGE];
+            }
+        }
+
         @Override
         public void reduce(Text key, Iterable<Text> values, Context context) 
                 throws IOException, InterruptedException {
+            byte first = key.getLength() > 0 ? key.getBytes()[0] : 0;
+            int kind = first == 'N' ? NODE : first == 'E' ? EDGE : -1;
+
+            if (kind >= 0 && bypass[kind]) {
+                long n = 0;
+                for (Text val : values) {
+                    context.write(key, val);
+                    n++;
+                }
+                context.getCounter(kind == NODE ? Counters.COMBINER_BYPASSED_NODES : Counters.COMBINER_BYPASSED_EDGES).increment(n);
+                context.getCounter(kind == NODE ? Counters.COMBINER_NODES_EMITTED : Counters.COMBINER_EDGES_EMITTED).increment(n);
+                return;
+            }
+
             long totalCount = 0;
             long totalWins = 0;
+            long n = 0;
+            long bytesIn = 0;
 
             for (Text val : values) {
                 String[] parts = val.toString().split(",");
                 totalCount += Long.parseLong(parts[0]);
                 totalWins += Long.parseLong(parts[1]);
+                bytesIn += key.getLength() + val.getLength();
+                n++;
             }
 
-            context.write(key, new Text(totalCount + "," + totalWins));
+            result.set(totalCount + "," + totalWins);
+            context.write(key, result);
+            context.getCounter(Counters.COMBINER_BYTES_SAVED).increment(bytesIn - key.getLength() - result.getLength());
             
             // Compteur pour voir l'effet du Combiner
-            String keyStr = key.toString();
-            if (keyStr.startsWith("N|")) {
+            if (kind == NODE) {
                 context.getCounter(Counters.COMBINER_NODES_EMITTED).increment(1);
-            } else if (keyStr.startsWith("E|")) {
+            } else if (kind == EDGE) {
                 context.getCounter(Counters.COMBINER_EDGES_EMITTED).increment(1);
             }
+            if (kind >= 0) {
+                in[kind] += n;
+                out[kind]++;
+            }
+        }
+
+        /**
+         * Publie les taux de ce spill et décide pour les suivants (la décision ne revient pas en arrière).
+         */
+        @Override
+        protected void cleanup(Context context) {
+            synchronized (ArchetypeCombiner.class) {
+                if (!context.getJobID().toString().equals(trackedJob)) return;
+                for (int kind = NODE; kind <= EDGE; kind++) {
+                    seenIn[kind] += in[kind];
+                    seenOut[kind] += out[kind];
+                    if (!bypassed[kind] && minReduction > 0 && seenIn[kind] >= warmup
+                            && 1.0 - (double) seenOut[kind] / seenIn[kind] < minReduction) {
+                        bypassed[kind] = true;
+                    }
+                }
+            }
         }
     }
 
     // --- REDUCER ---
     public static class ArchetypeReducer extends Reducer<Text, Text, Text, Text> {
         private MultipleOutputs<Text, Text> multipleOutputs;
+        private long minSupport;
+        private boolean cube;
+        private double scaleRate;
 
         /**
          * Initialise MultipleOutputs pour écrire dans plusieurs fichiers de sortie.
@@ -189,6 +540,10 @@ public class NodesAndEdges {
         @Override
         protected void setup(Context context) {
             multipleOutputs = new MultipleOutputs<>(context);
+            minSupport = context.getConfiguration().getLong(MIN_SUPPORT_KEY, 0);
+            cube = context.getConfiguration().get(CUBE_TIME_BUCKET_KEY) != null;
+            scaleRate = context.getConfiguration().getBoolean(Sampling.SCALE_COUNTS_KEY, false)
+                    ? context.getConfiguration().getDouble(Sampling.SAMPLE_RATE_KEY, 1.0) : 1.0;
         }
 
         @Override
@@ -203,25 +558,61 @@ public class NodesAndEdges {
                 totalWins += Long.parseLong(parts[1]);
             }
 
+            // Échantillon : estimation sur la population complète (÷ taux)
+            totalCount = Sampling.scale(totalCount, scaleRate);
+            totalWins = Sampling.scale(totalWins, scaleRate);
+
             String keyStr = key.toString();
+            String body = keyStr.substring(2);
+            String partition = "";
+
+            // Cube : "temps|trophées|..." -> partition time=.../trophies=.../
+            if (cube) {
+                int sep1 = body.indexOf('|');
+                int sep2 = body.indexOf('|', sep1 + 1);
+                String t = body.substring(0, sep1);
+                String b = body.substring(sep1 + 1, sep2);
+                partition = "time=" + t + "/trophies=" + b + "/";
+                body = body.substring(sep2 + 1);
+
+                // nAll global = masse de la cellule (all, all)
+                if (keyStr.startsWith("E|") && t.equals(CUBE_ALL) && b.equals(CUBE_ALL)) {
+                    context.getCounter(Counters.EDGES_TOTAL_COUNT).increment(totalCount);
+                }
+            } else if (keyStr.startsWith("E|")) {
+                // Masse totale des arêtes avant élagage : garde nAll exact même si on élague
+                context.getCounter(Counters.EDGES_TOTAL_COUNT).increment(totalCount);
+            }
+
+            // Élagage : trop peu d'occurrences pour être statistiquement exploitable.
+            // Pas dans le cube : une cellule rare peut compter une fois fusionnée (cf. slice).
+            if (!cube && totalCount < minSupport) {
+                if (keyStr.startsWith("N|")) {
+                    context.getCounter(Counters.PRUNED_NODES).increment(1);
+                } else if (keyStr.startsWith("E|")) {
+                    context.getCounter(Counters.PRUNED_EDGES).increment(1);
+                    context.getCounter(Counters.PRUNED_EDGES_COUNT).increment(totalCount);
+                }
+                return;
+            }
             
             // "N" -> on écrit dans le fichier des nœuds
             if (keyStr.startsWith("N|")) {
-                String archetype = keyStr.substring(2);
+                String archetype = body;
                 // archetype;count;wins
                 String output = archetype + ";" + totalCount + ";" + totalWins;
-                multipleOutputs.write("nodes", new Text(output), new Text(""));
+                multipleOutputs.write("nodes", new Text(output), new Text(""), partition + "nodes");
                 context.getCounter(Counters.REDUCER_NODES_WRITTEN).increment(1);
                 
             } 
             // "E" -> on écrit dans le fichier des arêtes
             else if (keyStr.startsWith("E|")) {
-                String[] parts = keyStr.substring(2).split("\\|");
+                String[] parts = body.split("\\|");
                 String source = parts[0];
                 String target = parts[1];
                 // source;target;count;wins
                 String output = source + ";" + target + ";" + totalCount + ";" + totalWins;
-                multipleOutputs.write("edges", new Text(output), new Text(""));
+                multipleOutputs.write("edges", new Text(output), new Text(""), partition + "edges");
                 context.getCounter(Counters.REDUCER_EDGES_WRITTEN).increment(1);
             }
         }
@@ -238,13 +629,78 @@ public class NodesAndEdges {
     }
 
     public static boolean runJob(String[] args, int archetypeSize) throws Exception {
+        return runJob(args, archetypeSize, false);
+    }
+
+    /**
+     * @param canonicalEdges si vrai, chaque matchup {A,B} est écrit une seule fois sous la forme
+     *                       min;max;count;wins_min (wins_max = count - wins_min).
+     */
+    public static boolean runJob(String[] args, int archetypeSize, boolean canonicalEdges) throws Exception {
+        return runJob(args, archetypeSize, canonicalEdges, 0);
+    }
+
+    /**
+     * @param minSupport nombre minimal d'occurrences pour qu'un nœud ou une arête soit écrit.
+     *                   La masse élaguée est conservée dans le fichier _summary (nAll).
+     */
+    public static boolean runJob(String[] args, int archetypeSize, boolean canonicalEdges, long minSupport) throws Exception {
+        return runJob(args, archetypeSize, canonicalEdges, minSupport, DEFAULT_DENSE_MAX_SIZE);
+    }
+
+    /**
+     * @param denseMaxSize taille max des archétypes agrégés dans des tableaux denses côté mapper
+     *                     (0 = toujours passer par les clés texte).
+     */
+    public static boolean runJob(String[] args, int archetypeSize, boolean canonicalEdges, long minSupport,
+                                 int denseMaxSize) throws Exception {
         Configuration conf = new Configuration();
         conf.setInt(ARCHETYPE_SIZE_KEY, archetypeSize);
+        conf.setInt(DENSE_MAX_SIZE_KEY, denseMaxSize);
+        conf.setBoolean(CANONICAL_EDGES_KEY, canonicalEdges);
+        conf.setLong(MIN_SUPPORT_KEY, minSupport);
+        return runJob(args, conf);
+    }
+
+    /**
+     * Lance le job avec une configuration déjà remplie (ARCHETYPE_SIZE_KEY, CANONICAL_EDGES_KEY,
+     * MIN_SUPPORT_KEY, DENSE_MAX_SIZE_KEY, CUBE_TIME_BUCKET_KEY, MapThreads.THREADS_KEY...).
+     */
+    public static boolean runJob(String[] args, Configuration conf) throws Exception {
+        int archetypeSize = conf.getInt(ARCHETYPE_SIZE_KEY, DEFAULT_ARCHETYPE_SIZE);
+        boolean cube = conf.get(CUBE_TIME_BUCKET_KEY) != null;
+        // Ce job compte des parties : ses compteurs sont remis à l'échelle si échantillon
+        conf.setBoolean(Sampling.SCALE_COUNTS_KEY, conf.getDouble(Sampling.SAMPLE_RATE_KEY, 1.0) < 1.0);
 
-        Job job = Job.getInstance(conf, "PLE Clash Royale - Nodes & Edges (size=" + archetypeSize + ")");
+        Job job = Job.getInstance(conf, "PLE Clash Royale - Nodes & Edges (size=" + archetypeSize
+                + (cube ? ", cube=" + conf.get(CUBE_TIME_BUCKET_KEY) : "") + ")");
 
         job.setJarByClass(NodesAndEdges.class);
-        job.setMapperClass(ArchetypeMapper.class);
+        MapThreads.configure(job, ArchetypeMapper.class);
+        // Un ou plusieurs chemins (virgules, globs), splits combinés si input.combine.split.mb
+        InputFiles.configure(job, args[0]);
+
+        // Cube : une partition par cellule, pas de part-r-* vides à la racine
+        if (cube) {
+            LazyOutputFormat.setOutputFormatClass(job, TextOutputFormat.class);
+        }
+
+        return runAggregation(job, new Path(args[1]));
+    }
+
+    /**
+     * Partie commune aux jobs qui agrègent des clés N|/E| (nodes, slice) :
+     * combiner/reducer, sorties nommées, rapport et fichier _summary.
+     */
+    private static boolean runAggregation(Job job, Path outputPath) throws Exception {
+        Configuration conf = job.getConfiguration();
+        int archetypeSize = conf.getInt(ARCHETYPE_SIZE_KEY, DEFAULT_ARCHETYPE_SIZE);
+        boolean canonicalEdges = conf.getBoolean(CANONICAL_EDGES_KEY, false);
+        long minSupport = conf.getLong(MIN_SUPPORT_KEY, 0);
+        int denseMaxSize = conf.getInt(DENSE_MAX_SIZE_KEY, DEFAULT_DENSE_MAX_SIZE);
+        String timeBucket = conf.get(CUBE_TIME_BUCKET_KEY);
+        boolean cube = timeBucket != null;
+
         job.setCombinerClass(ArchetypeCombiner.class);
         job.setReducerClass(ArchetypeReducer.class);
 
@@ -253,14 +709,14 @@ public class NodesAndEdges {
         job.setOutputKeyClass(Text.class);
         job.setOutputValueClass(Text.class);
 
-        job.setInputFormatClass(TextInputFormat.class);
-        job.setOutputFormatClass(TextOutputFormat.class);
+        if (!cube) {
+            job.setOutputFormatClass(TextOutputFormat.class);
+        }
 
         MultipleOutputs.addNamedOutput(job, "nodes", TextOutputFormat.class, Text.class, Text.class);
         MultipleOutputs.addNamedOutput(job, "edges", TextOutputFormat.class, Text.class, Text.class);
 
-        FileInputFormat.addInputPath(job, new Path(args[0]));
-        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+        FileOutputFormat.setOutputPath(job, outputPath);
 
         boolean success = job.waitForCompletion(true);
 
@@ -273,13 +729,54 @@ public class NodesAndEdges {
             long combinerEdges = c.findCounter(Counters.COMBINER_EDGES_EMITTED).getValue();
             long reducerNodes = c.findCounter(Counters.REDUCER_NODES_WRITTEN).getValue();
             long reducerEdges = c.findCounter(Counters.REDUCER_EDGES_WRITTEN).getValue();
+            long edgesTotalCount = c.findCounter(Counters.EDGES_TOTAL_COUNT).getValue();
+            long prunedNodes = c.findCounter(Counters.PRUNED_NODES).getValue();
+            long prunedEdges = c.findCounter(Counters.PRUNED_EDGES).getValue();
+            long prunedEdgesCount = c.findCounter(Counters.PRUNED_EDGES_COUNT).getValue();
+
+            // Récapitulatif lu par la tâche stats (nAll reste exact malgré l'élagage)
+            Properties summary = new Properties();
+            summary.setProperty("nAll", String.valueOf(edgesTotalCount));
+            summary.setProperty("archetypeSize", String.valueOf(archetypeSize));
+            summary.setProperty("canonical", String.valueOf(canonicalEdges));
+            summary.setProperty("minSupport", String.valueOf(minSupport));
+            summary.setProperty("prunedNodes", String.valueOf(prunedNodes));
+            summary.setProperty("prunedEdges", String.valueOf(prunedEdges));
+            summary.setProperty("prunedEdgesCount", String.valueOf(prunedEdgesCount));
+            summary.setProperty("sample", String.valueOf(conf.getDouble(Sampling.SAMPLE_RATE_KEY, 1.0)));
+            if (cube) {
+                // nAll = cellule time=all/trophies=all, chaque partition a le sien (somme de ses arêtes)
+                summary.setProperty("cube.time", timeBucket);
+                summary.setProperty("cube.trophyStep", String.valueOf(conf.getInt(CUBE_TROPHY_STEP_KEY, DEFAULT_TROPHY_STEP)));
+            }
+            writeSummary(outputPath, conf, summary);
             
             System.out.println("\n-------------------------------------------");
             System.out.println("  RAPPORT NODES & EDGES");
             System.out.println("-------------------------------------------");
             System.out.println("  Taille archétype    : " + archetypeSize);
+            System.out.println("  Arêtes canoniques   : " + (canonicalEdges ? "oui" : "non"));
+            System.out.println("  Agrégation dense    : " + (!cube && useDense(archetypeSize, denseMaxSize) ? "oui" : "non"));
+            if (cube) {
+                System.out.println("  Cube                : " + timeBucket + " x trophées/"
+                        + conf.getInt(CUBE_TROPHY_STEP_KEY, DEFAULT_TROPHY_STEP));
+            }
+            long mapTasks = c.findCounter(JobCounter.TOTAL_LAUNCHED_MAPS).getValue();
+            // Non renseigné par le LocalJobRunner
+            if (mapTasks > 0) {
+                System.out.println("  Tâches map          : " + mapTasks
+                        + (conf.getLong(InputFiles.COMBINE_SPLIT_MB_KEY, 0) > 0
+                           ? " (splits combinés de " + conf.getLong(InputFiles.COMBINE_SPLIT_MB_KEY, 0) + " Mo max)" : ""));
+            }
+            if (conf.getInt(MapThreads.THREADS_KEY, 1) > 1) {
+                System.out.println("  Threads map         : " + conf.getInt(MapThreads.THREADS_KEY, 1) + " par tâche");
+            }
             System.out.println("  Parties traitées    : " + c.findCounter(Counters.GAMES_PROCESSED).getValue());
             System.out.println("  Parties invalides   : " + c.findCounter(Counters.INVALID_GAMES).getValue());
+            if (conf.getDouble(Sampling.SAMPLE_RATE_KEY, 1.0) < 1.0) {
+                System.out.println("  Échantillon         : " + conf.getDouble(Sampling.SAMPLE_RATE_KEY, 1.0)
+                        + " (" + c.findCounter(Counters.SAMPLED_OUT).getValue() + " parties écartées, counts remis à l'échelle)");
+            }
             System.out.println("-------------------------------------------");
             System.out.println("  MAPPER  → Nœuds émis : " + mapperNodes);
             System.out.println("  MAPPER  → Arêtes     : " + mapperEdges);
@@ -292,25 +789,200 @@ public class NodesAndEdges {
                 System.out.println("  Réduction nœuds      : " + String.format("%.1f%%", nodeReduction));
                 System.out.println("  Réduction arêtes     : " + String.format("%.1f%%", edgeReduction));
             }
+            System.out.println("  Combiner N| / E|     : " + combinerDecision(c.findCounter(Counters.COMBINER_BYPASSED_NODES).getValue())
+                    + " / " + combinerDecision(c.findCounter(Counters.COMBINER_BYPASSED_EDGES).getValue())
+                    + " (seuil " + String.format("%.0f%%", conf.getDouble(COMBINER_MIN_REDUCTION_KEY, DEFAULT_COMBINER_MIN_REDUCTION) * 100) + ")");
+            System.out.println("  Octets évités        : " + c.findCounter(Counters.COMBINER_BYTES_SAVED).getValue());
+            // Le combiner repasse aussi sur la fusion des spills : ses compteurs cumulent les passes,
+            // l'entrée des reducers donne le volume réellement transféré
+            System.out.println("  Entrées reducers     : " + c.findCounter(TaskCounter.REDUCE_INPUT_RECORDS).getValue()
+                    + " / " + c.findCounter(TaskCounter.MAP_OUTPUT_RECORDS).getValue() + " sorties map");
             System.out.println("-------------------------------------------");
             System.out.println("  REDUCER → Nœuds écrits: " + reducerNodes);
             System.out.println("  REDUCER → Arêtes      : " + reducerEdges);
+            if (minSupport > 0) {
+                System.out.println("-------------------------------------------");
+                System.out.println("  Support minimal      : " + minSupport);
+                System.out.println("  Nœuds élagués        : " + prunedNodes);
+                System.out.println("  Arêtes élaguées      : " + prunedEdges + " (masse " + prunedEdgesCount + ")");
+            }
+            System.out.println("  nAll (avant élagage) : " + edgesTotalCount);
             System.out.println("-------------------------------------------\n");
         }
 
         return success;
     }
 
+    private static String combinerDecision(long bypassedRecords) {
+        return bypassedRecords > 0 ? "contourné (" + bypassedRecords + " recopiés)" : "actif";
+    }
+
+    // --- SLICE : fusion de partitions du cube ---
+
+    /**
+     * Relit des nœuds déjà agrégés (archetype;count;wins) pour les fusionner.
+     */
+    public static class NodeMergeMapper extends Mapper<Object, Text, Text, Text> {
+        @Override
+        protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            String[] parts = value.toString().trim().split(";");
+            if (parts.length < 3) return;
+            context.write(new Text("N|" + parts[0]), new Text(parts[1].trim() + "," + parts[2].trim()));
+            context.getCounter(Counters.MAPPER_NODES_EMITTED).increment(1);
+        }
+    }
+
+    /**
+     * Relit des arêtes déjà agrégées (source;target;count;wins) pour les fusionner.
+     */
+    public static class EdgeMergeMapper extends Mapper<Object, Text, Text, Text> {
+        @Override
+        protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            String[] parts = value.toString().trim().split(";");
+            if (parts.length < 4) return;
+            context.write(new Text("E|" + parts[0] + "|" + parts[1]), new Text(parts[2].trim() + "," + parts[3].trim()));
+            context.getCounter(Counters.MAPPER_EDGES_EMITTED).increment(1);
+        }
+    }
+
+    /**
+     * Extrait une tranche du cube (période x tranche de trophées) en fusionnant uniquement les
+     * partitions concernées. La sortie a le même format que le job nodes (nodes-r-*, edges-r-*, _summary).
+     *
+     * @param from        premier bucket de temps inclus (même format que le cube : 2025-11-11 ou 2025-W46), null = pas de filtre
+     * @param to          dernier bucket de temps inclus, null = pas de filtre
+     * @param minTrophies tranche minimale incluse (borne basse de tranche), -1 = pas de filtre
+     * @param maxTrophies tranches strictement inférieures à cette valeur, -1 = pas de filtre
+     */
+    public static boolean runSliceJob(String cubeDir, String outputDir, String from, String to,
+                                      int minTrophies, int maxTrophies, long minSupport) throws Exception {
+        Configuration conf = new Configuration();
+        Path cubePath = new Path(cubeDir);
+        FileSystem fs = cubePath.getFileSystem(conf);
+        Properties cubeSummary = readSummary(cubePath, conf);
+
+        conf.setInt(ARCHETYPE_SIZE_KEY, Integer.parseInt(cubeSummary.getProperty("archetypeSize",
+                String.valueOf(DEFAULT_ARCHETYPE_SIZE))));
+        conf.setBoolean(CANONICAL_EDGES_KEY, Boolean.parseBoolean(cubeSummary.getProperty("canonical", "false")));
+        conf.setLong(MIN_SUPPORT_KEY, minSupport);
+        // Counts déjà remis à l'échelle dans le cube : on garde seulement le taux pour le _summary
+        conf.setDouble(Sampling.SAMPLE_RATE_KEY, Double.parseDouble(cubeSummary.getProperty("sample", "1.0")));
+
+        // Sans filtre sur une dimension, on lit directement son agrégat (rollup "all")
+        boolean allTimes = from == null && to == null;
+        boolean allTrophies = minTrophies < 0 && maxTrophies < 0;
+
+        conf.setBoolean(Sampling.SCALE_COUNTS_KEY, false);
+        Job job = Job.getInstance(conf, "PLE Clash Royale - Cube slice");
+        job.setJarByClass(NodesAndEdges.class);
+
+        int partitions = 0;
+        for (FileStatus timeDir : listPartitions(fs, cubePath, "time=")) {
+            String t = timeDir.getPath().getName().substring(5);
+            if (allTimes != t.equals(CUBE_ALL)) continue;
+            if (!allTimes && ((from != null && t.compareTo(from) < 0) || (to != null && t.compareTo(to) > 0))) continue;
+
+            for (FileStatus trophyDir : listPartitions(fs, timeDir.getPath(), "trophies=")) {
+                String b = trophyDir.getPath().getName().substring(9);
+                if (allTrophies != b.equals(CUBE_ALL)) continue;
+                if (!allTrophies) {
+                    int bracket = Integer.parseInt(b);
+                    if ((minTrophies >= 0 && bracket < minTrophies) || (maxTrophies >= 0 && bracket >= maxTrophies)) continue;
+                }
+
+                System.out.println("    Partition : " + timeDir.getPath().getName() + "/" + trophyDir.getPath().getName());
+                MultipleInputs.addInputPath(job, new Path(trophyDir.getPath(), "nodes-r-*"),
+                                            TextInputFormat.class, NodeMergeMapper.class);
+                MultipleInputs.addInputPath(job, new Path(trophyDir.getPath(), "edges-r-*"),
+                                            TextInputFormat.class, EdgeMergeMapper.class);
+                partitions++;
+            }
+        }
+
+        if (partitions == 0) {
+            System.err.println("Erreur: aucune partition du cube ne correspond à la tranche demandée");
+            return false;
+        }
+
+        return runAggregation(job, new Path(outputDir));
+    }
+
+    private static FileStatus[] listPartitions(FileSystem fs, Path dir, String prefix) throws IOException {
+        FileStatus[] statuses = fs.globStatus(new Path(dir, prefix + "*"));
+        return statuses == null ? new FileStatus[0] : statuses;
+    }
+
+    /**
+     * Bucket de temps d'une date ISO ("2025-11-11T15:47:37Z") : "2025-11-11" (day) ou "2025-W46" (week, ISO 8601).
+     * Les libellés se trient dans l'ordre chronologique.
+     */
+    static String timeBucket(String date, String granularity) {
+        if (date == null || date.length() < 10) return "unknown";
+        String day = date.substring(0, 10);
+        if (!"week".equals(granularity)) return day;
+        try {
+            LocalDate d = LocalDate.parse(day);
+            return String.format("%d-W%02d", d.get(IsoFields.WEEK_BASED_YEAR), d.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Écrit le fichier récapitulatif (_summary) dans le dossier de sortie.
+     */
+    static void writeSummary(Path outputDir, Configuration conf, Properties summary) throws IOException {
+        FileSystem fs = outputDir.getFileSystem(conf);
+        try (OutputStream out = fs.create(new Path(outputDir, SUMMARY_FILE), true)) {
+            summary.store(out, "PLE Clash Royale - Nodes & Edges");
+        }
+    }
+
+    /**
+     * Lit le fichier récapitulatif associé à une sortie (dossier ou fichier nodes/edges-r-*).
+     * Retourne des propriétés vides s'il n'existe pas (sorties générées par une ancienne version).
+     */
+    static Properties readSummary(Path outputPath, Configuration conf) throws IOException {
+        Properties summary = new Properties();
+        FileSystem fs = outputPath.getFileSystem(conf);
+        Path dir = fs.isDirectory(outputPath) ? outputPath : outputPath.getParent();
+        Path summaryPath = new Path(dir, SUMMARY_FILE);
+        if (fs.exists(summaryPath)) {
+            try (InputStream in = fs.open(summaryPath)) {
+                summary.load(in);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Agrégation dense possible pour cette taille : demandée (<= denseMaxSize), bornée par MAX_DENSE_SIZE
+     * et univers C(256,k) indexable par un int.
+     */
+    static boolean useDense(int archetypeSize, int denseMaxSize) {
+        return archetypeSize >= 1 && archetypeSize <= Math.min(denseMaxSize, MAX_DENSE_SIZE)
+                && CardDictionary.universeSize(archetypeSize) <= Integer.MAX_VALUE;
+    }
+
     public static void main(String[] args) throws Exception {
         int size = DEFAULT_ARCHETYPE_SIZE;
+        boolean canonical = false;
+        long minSupport = 0;
+        int denseMaxSize = DEFAULT_DENSE_MAX_SIZE;
         
-        // Parser --size=X si présent
+        // Parser --size=X, --canonical, --min-support=N et --dense-max=K si présents
         for (String arg : args) {
             if (arg.startsWith("--size=")) {
                 size = Integer.parseInt(arg.substring(7));
+            } else if (arg.equals("--canonical")) {
+                canonical = true;
+            } else if (arg.startsWith("--min-support=")) {
+                minSupport = Long.parseLong(arg.substring(14));
+            } else if (arg.startsWith("--dense-max=")) {
+                denseMaxSize = Integer.parseInt(arg.substring(12));
             }
         }
         
-        System.exit(runJob(args, size) ? 0 : 1);
+        System.exit(runJob(args, size, canonical, minSupport, denseMaxSize) ? 0 : 1);
     }
 }
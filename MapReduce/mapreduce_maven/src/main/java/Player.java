@@ -31,18 +31,22 @@ public class Player {
     }
 
     public String getUtag() { return utag; }
+
+    public int getTrophies() { return trophies; }
     
     public String getDeck() { return deck; }
     
     /**
      * Retourne les 8 cartes du deck sous forme de tableau.
-     * Chaque carte est représentée par 2 caractères hexa.
+     * Chaque carte est représentée par 2 caractères hexa, toujours en minuscules :
+     * "0A" et "0a" sont la même carte (même forme que CardDictionary.cardHex en mode dense).
      */
     public String[] getCards() {
         if (deck == null || deck.length() != 16) return null;
+        String lower = deck.toLowerCase();
         String[] cards = new String[8];
         for (int i = 0; i < 8; i++) {
-            cards[i] = deck.substring(i * 2, i * 2 + 2);
+            cards[i] = lower.substring(i * 2, i * 2 + 2);
         }
         return cards;
     }
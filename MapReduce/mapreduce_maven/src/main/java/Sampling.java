@@ -0,0 +1,73 @@
+/**
+ * Échantillonnage déterministe du pipeline (--sample=p).
+ *
+ * Une partie est gardée selon le hash de sa clé de paire de joueurs (Game.getPlayerPairKey()) :
+ * toutes les parties A vs B sont gardées ou jetées ensemble, la fenêtre de dédoublonnage du
+ * CleaningReducer reste donc valable, et appliquer deux fois le même taux ne change rien.
+ * Les compteurs sont ensuite remis à l'échelle (÷ p) et Stats donne des intervalles de confiance.
+ */
+public class Sampling {
+
+    public static final String SAMPLE_RATE_KEY = "sample.rate";
+    // Vrai uniquement pour le job qui compte les parties échantillonnées (pas pour slice qui relit des sorties déjà mises à l'échelle)
+    public static final String SCALE_COUNTS_KEY = "sample.scale.counts";
+    // Quantile de la loi normale pour les intervalles à 95%
+    public static final double Z_95 = 1.96;
+
+    private Sampling() {}
+
+    /**
+     * Vrai si la clé fait partie de l'échantillon de taux rate (0 < rate <= 1).
+     */
+    public static boolean keep(String pairKey, double rate) {
+        if (rate >= 1.0) return true;
+        // FNV-1a 64 bits puis mélange : stable d'une JVM à l'autre (contrairement à un Random)
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < pairKey.length(); i++) {
+            h ^= pairKey.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        double u = (LongCounterMap.mix(h) >>> 11) * 0x1.0p-53;
+        return u < rate;
+    }
+
+    /**
+     * Estimation sur la population complète d'un compteur mesuré sur l'échantillon.
+     */
+    public static long scale(long sampledCount, double rate) {
+        if (rate >= 1.0) return sampledCount;
+        return Math.round(sampledCount / rate);
+    }
+
+    /**
+     * Inverse de scale() : nombre d'observations réellement vues dans l'échantillon.
+     */
+    public static long unscale(long scaledCount, double rate) {
+        if (rate >= 1.0) return scaledCount;
+        return Math.round(scaledCount * rate);
+    }
+
+    /**
+     * Intervalle de Wilson {bas, haut} du taux de victoire wins/n.
+     */
+    public static double[] wilson(long wins, long n, double z) {
+        if (n <= 0) return new double[]{0.0, 1.0};
+        double p = (double) wins / n;
+        double z2 = z * z;
+        double denom = 1 + z2 / n;
+        double center = (p + z2 / (2.0 * n)) / denom;
+        double half = z * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n)) / denom;
+        return new double[]{Math.max(0.0, center - half), Math.min(1.0, center + half)};
+    }
+
+    /**
+     * Intervalle {bas, haut} de la prévision countSource * countTarget / nAll quand les trois
+     * compteurs sont estimés sur un échantillon : méthode delta en supposant des compteurs de Poisson
+     * indépendants, variance relative ≈ 1/nS + 1/nT + 1/nAll (observations réelles).
+     */
+    public static double[] previsionInterval(double prevision, long rawSource, long rawTarget, long rawAll, double z) {
+        double relVar = 1.0 / Math.max(1, rawSource) + 1.0 / Math.max(1, rawTarget) + 1.0 / Math.max(1, rawAll);
+        double half = z * prevision * Math.sqrt(relVar);
+        return new double[]{Math.max(0.0, prevision - half), prevision + half};
+    }
+}
@@ -0,0 +1,319 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.partition.HashPartitioner;
+
+/**
+ * Index LSH des archétypes proches ("decks qui partagent la plupart des cartes").
+ *
+ * Chaque archétype des nœuds de NodesAndEdges reçoit une signature MinHash de son ensemble de cartes
+ * (bands x rows fonctions de hachage). Deux archétypes de similarité de Jaccard J tombent dans un même
+ * bucket d'au moins une bande avec une probabilité 1 - (1 - J^rows)^bands : on évite la comparaison de
+ * toutes les paires. Sortie : MapFile (clé = "bande:hash", valeur = "archetype:count:wins|...").
+ *
+ * La requête recalcule la signature du deck, lit un bucket par bande puis trie les candidats par
+ * Jaccard exact.
+ */
+public class SimilarDecks {
+
+    public static final String BANDS_KEY = "lsh.bands";
+    public static final int DEFAULT_BANDS = 10;
+    public static final String ROWS_KEY = "lsh.rows";
+    public static final int DEFAULT_ROWS = 3;
+    // Les buckets de cartes très jouées sont tronqués aux archétypes les plus joués
+    public static final String MAX_BUCKET_KEY = "lsh.max.bucket";
+    public static final int DEFAULT_MAX_BUCKET = 1000;
+    public static final String MIN_COUNT_KEY = "lsh.min.count";
+    public static final long DEFAULT_MIN_COUNT = 1;
+    // Une clé sur N dans l'index en mémoire du MapFile (128 par défaut) : une requête lit au plus N
+    // enregistrements par bande au lieu de 128, pour un index N fois plus gros
+    private static final int MAP_FILE_INDEX_INTERVAL = 8;
+
+    // --- COMPTEURS PERSONNALISÉS ---
+    public enum Counters {
+        ARCHETYPES_READ, ARCHETYPES_BELOW_MIN_COUNT, BUCKETS_WRITTEN, BUCKETS_TRUNCATED
+    }
+
+    /**
+     * Signature MinHash : pour chaque fonction i, le minimum de h_i(carte) sur les cartes de l'archétype.
+     */
+    static long[] signature(int[] cardIds, int hashes) {
+        long[] sig = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            long min = Long.MAX_VALUE;
+            long salt = (i + 1) * 0x9e3779b97f4a7c15L;
+            for (int card : cardIds) {
+                long h = LongCounterMap.mix(card + 1 + salt);
+                if (h < min) min = h;
+            }
+            sig[i] = min;
+        }
+        return sig;
+    }
+
+    /**
+     * Clé du bucket de la bande b : hash des rows valeurs de signature de cette bande.
+     */
+    static String bucketKey(long[] sig, int band, int rows) {
+        long h = band;
+        for (int j = 0; j < rows; j++) {
+            h = LongCounterMap.mix(h * 31 + sig[band * rows + j]);
+        }
+        return band + ":" + Long.toHexString(h);
+    }
+
+    static int[] cardIds(String archetype) {
+        int[] ids = new int[archetype.length() / 2];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = CardDictionary.cardId(archetype.substring(i * 2, i * 2 + 2));
+        }
+        return ids;
+    }
+
+    /**
+     * Similarité de Jaccard exacte entre deux ensembles de cartes.
+     */
+    static double jaccard(int[] a, int[] b) {
+        int inter = 0;
+        for (int x : a) {
+            for (int y : b) {
+                if (x == y) {
+                    inter++;
+                    break;
+                }
+            }
+        }
+        int union = a.length + b.length - inter;
+        return union == 0 ? 0.0 : (double) inter / union;
+    }
+
+    // --- MAPPER ---
+    public static class SignatureMapper extends Mapper<Object, Text, Text, Text> {
+        private int bands;
+        private int rows;
+        private long minCount;
+
+        @Override
+        protected void setup(Context context) {
+            bands = context.getConfiguration().getInt(BANDS_KEY, DEFAULT_BANDS);
+            rows = context.getConfiguration().getInt(ROWS_KEY, DEFAULT_ROWS);
+            minCount = context.getConfiguration().getLong(MIN_COUNT_KEY, DEFAULT_MIN_COUNT);
+        }
+
+        @Override
+        protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            // reçoit : Archetype;Count;Wins
+            String[] parts = value.toString().trim().split(";");
+            if (parts.length < 3) return;
+            String archetype = parts[0].trim();
+            if (archetype.isEmpty() || archetype.length() % 2 != 0) return;
+            long count = Long.parseLong(parts[1].trim());
+            context.getCounter(Counters.ARCHETYPES_READ).increment(1);
+            if (count < minCount) {
+                context.getCounter(Counters.ARCHETYPES_BELOW_MIN_COUNT).increment(1);
+                return;
+            }
+
+            long[] sig = signature(cardIds(archetype), bands * rows);
+            Text member = new Text(archetype + ";" + count + ";" + parts[2].trim());
+            for (int b = 0; b < bands; b++) {
+                context.write(new Text(bucketKey(sig, b, rows)), member);
+            }
+        }
+    }
+
+    // --- REDUCER ---
+    public static class BucketReducer extends Reducer<Text, Text, Text, Text> {
+        private int maxBucket;
+
+        @Override
+        protected void setup(Context context) {
+            maxBucket = context.getConfiguration().getInt(MAX_BUCKET_KEY, DEFAULT_MAX_BUCKET);
+        }
+
+        @Override
+        protected void reduce(Text key, Iterable<Text> values, Context context) throws IOException, InterruptedException {
+            // Tas min borné sur count : garde les maxBucket archétypes les plus joués du bucket
+            PriorityQueue<String[]> heap = new PriorityQueue<>(16, BY_COUNT);
+            boolean truncated = false;
+            for (Text val : values) {
+                heap.add(val.toString().split(";"));
+                if (heap.size() > maxBucket) {
+                    heap.poll();
+                    truncated = true;
+                }
+            }
+            List<String[]> members = new ArrayList<>(heap);
+            Collections.sort(members, Collections.reverseOrder(BY_COUNT));
+
+            StringBuilder sb = new StringBuilder();
+            for (String[] m : members) {
+                if (sb.length() > 0) sb.append('|');
+                sb.append(m[0]).append(':').append(m[1]).append(':').append(m[2]);
+            }
+            context.write(key, new Text(sb.toString()));
+            context.getCounter(Counters.BUCKETS_WRITTEN).increment(1);
+            if (truncated) context.getCounter(Counters.BUCKETS_TRUNCATED).increment(1);
+        }
+    }
+
+    private static final Comparator<String[]> BY_COUNT = new Comparator<String[]>() {
+        @Override
+        public int compare(String[] a, String[] b) {
+            int c = Long.compare(Long.parseLong(a[1]), Long.parseLong(b[1]));
+            return c != 0 ? c : b[0].compareTo(a[0]);
+        }
+    };
+
+    // --- Main job runner ---
+    public static boolean runJob(String inputPath, String outputPath, int bands, int rows, long minCount,
+                                 int maxBucket) throws Exception {
+        Configuration conf = new Configuration();
+        conf.setInt(BANDS_KEY, bands);
+        conf.setInt(ROWS_KEY, rows);
+        conf.setLong(MIN_COUNT_KEY, minCount);
+        conf.setInt(MAX_BUCKET_KEY, maxBucket);
+        conf.setInt("io.map.index.interval", MAP_FILE_INDEX_INTERVAL);
+
+        // Dossier de sortie de nodes : on ne lit que les nœuds
+        Path input = new Path(inputPath);
+        if (input.getFileSystem(conf).isDirectory(input)) {
+            input = new Path(input, "nodes-r-*");
+        }
+
+        Job job = Job.getInstance(conf, "PLE Clash Royale - Similar decks (LSH " + bands + "x" + rows + ")");
+        job.setJarByClass(SimilarDecks.class);
+        job.setMapperClass(SignatureMapper.class);
+        job.setReducerClass(BucketReducer.class);
+
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(Text.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(Text.class);
+
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(MapFileOutputFormat.class);
+
+        FileInputFormat.addInputPath(job, input);
+        FileOutputFormat.setOutputPath(job, new Path(outputPath));
+
+        boolean success = job.waitForCompletion(true);
+
+        if (success) {
+            // La requête doit utiliser les mêmes fonctions de hachage que l'index
+            Properties summary = new Properties();
+            summary.setProperty("bands", String.valueOf(bands));
+            summary.setProperty("rows", String.valueOf(rows));
+            NodesAndEdges.writeSummary(new Path(outputPath), conf, summary);
+
+            org.apache.hadoop.mapreduce.Counters c = job.getCounters();
+            System.out.println("\n-------------------------------------------");
+            System.out.println("  RAPPORT SIMILAR DECKS");
+            System.out.println("-------------------------------------------");
+            System.out.println("  Bandes x lignes      : " + bands + " x " + rows);
+            System.out.println("  Archétypes lus       : " + c.findCounter(Counters.ARCHETYPES_READ).getValue());
+            System.out.println("  Sous le minimum      : " + c.findCounter(Counters.ARCHETYPES_BELOW_MIN_COUNT).getValue());
+            System.out.println("  Buckets écrits       : " + c.findCounter(Counters.BUCKETS_WRITTEN).getValue());
+            System.out.println("  Buckets tronqués     : " + c.findCounter(Counters.BUCKETS_TRUNCATED).getValue());
+            System.out.println("-------------------------------------------\n");
+        }
+
+        return success;
+    }
+
+    /**
+     * Voisin trouvé par une requête.
+     */
+    public static class Neighbor {
+        public final String archetype;
+        public final double jaccard;
+        public final long count;
+        public final long wins;
+
+        Neighbor(String archetype, double jaccard, long count, long wins) {
+            this.archetype = archetype;
+            this.jaccard = jaccard;
+            this.count = count;
+            this.wins = wins;
+        }
+    }
+
+    /**
+     * Index ouvert pour des requêtes répétées (les MapFile ne sont ouverts qu'une fois).
+     */
+    public static class Index implements AutoCloseable {
+        private final MapFile.Reader[] readers;
+        private final HashPartitioner<Text, Text> partitioner = new HashPartitioner<>();
+        private final int bands;
+        private final int rows;
+
+        public Index(String indexPath) throws IOException {
+            Configuration conf = new Configuration();
+            Path dir = new Path(indexPath);
+            Properties summary = NodesAndEdges.readSummary(dir, conf);
+            bands = Integer.parseInt(summary.getProperty("bands", String.valueOf(DEFAULT_BANDS)));
+            rows = Integer.parseInt(summary.getProperty("rows", String.valueOf(DEFAULT_ROWS)));
+            readers = TopCounters.openReaders(dir, conf);
+            // Charge l'index de clés de chaque MapFile maintenant plutôt qu'à la première requête
+            for (MapFile.Reader reader : readers) {
+                reader.midKey();
+            }
+        }
+
+        /**
+         * Archétypes de Jaccard >= minJaccard avec le deck demandé, les plus proches puis les plus joués d'abord.
+         */
+        public List<Neighbor> query(String archetype, double minJaccard, int top) throws IOException {
+            int[] cards = cardIds(archetype);
+            long[] sig = signature(cards, bands * rows);
+
+            Map<String, Neighbor> candidates = new LinkedHashMap<>();
+            Text value = new Text();
+            for (int b = 0; b < bands; b++) {
+                if (MapFileOutputFormat.getEntry(readers, partitioner, new Text(bucketKey(sig, b, rows)), value) == null) continue;
+                for (String member : value.toString().split("\\|")) {
+                    String[] m = member.split(":");
+                    if (m.length < 3 || candidates.containsKey(m[0])) continue;
+                    double j = jaccard(cards, cardIds(m[0]));
+                    candidates.put(m[0], new Neighbor(m[0], j, Long.parseLong(m[1]), Long.parseLong(m[2])));
+                }
+            }
+
+            List<Neighbor> result = new ArrayList<>();
+            for (Neighbor n : candidates.values()) {
+                if (n.jaccard >= minJaccard) result.add(n);
+            }
+            Collections.sort(result, new Comparator<Neighbor>() {
+                @Override
+                public int compare(Neighbor a, Neighbor b) {
+                    int c = Double.compare(b.jaccard, a.jaccard);
+                    return c != 0 ? c : Long.compare(b.count, a.count);
+                }
+            });
+            return result.size() > top ? result.subList(0, top) : result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            TopCounters.closeReaders(readers);
+        }
+    }
+}
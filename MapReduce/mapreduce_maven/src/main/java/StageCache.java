@@ -0,0 +1,320 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * Cache des sorties d'étapes (clean, nodes, frequent, slice, stats, topk, lsh) adressé par le contenu.
+ *
+ * L'empreinte SHA-256 couvre le nom de l'étape, ses options, la version du code (jar) et chaque
+ * fichier d'entrée (chemin, taille, date de modification, checksum HDFS si disponible). Elle est notée
+ * dans un fichier _manifest de la sortie :
+ * - sortie déjà présente avec la même empreinte : réutilisée telle quelle
+ * - sinon, avec --cache=dir : copie de dir/<empreinte> si elle existe, et après un calcul la sortie y
+ *   est copiée, les entrées les moins récemment utilisées étant supprimées au-delà de --cache-max
+ *
+ * Les copies conservent les dates de modification, pour que l'étape suivante retrouve la même empreinte.
+ */
+public class StageCache {
+
+    public static final String MANIFEST_FILE = "_manifest";
+    public static final long DEFAULT_MAX_MB = 10240;
+
+    private static class CacheEntry {
+        final Path path;
+        final long lastUsed;
+        final long size;
+
+        CacheEntry(Path path, long lastUsed, long size) {
+            this.path = path;
+            this.lastUsed = lastUsed;
+            this.size = size;
+        }
+    }
+
+    private final Configuration conf;
+    private final Path output;
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final boolean force;
+    private final Properties manifest = new Properties();
+    private final String fingerprint;
+
+    /**
+     * @param cacheDir dossier du cache partagé (null = réutilisation en place uniquement)
+     * @param force recalcule même si une sortie correspondante existe
+     */
+    public StageCache(String stage, List<String> inputs, List<String> options, String output,
+                      String cacheDir, long maxMb, boolean force, Configuration conf) throws IOException {
+        this.conf = conf;
+        this.output = new Path(output);
+        this.cacheDir = cacheDir == null ? null : new Path(cacheDir);
+        this.maxBytes = maxMb << 20;
+        this.force = force;
+
+        manifest.setProperty("stage", stage);
+        manifest.setProperty("code", codeVersion());
+        List<String> sorted = new ArrayList<>(options);
+        Collections.sort(sorted);
+        for (int i = 0; i < sorted.size(); i++) {
+            manifest.setProperty("option." + i, sorted.get(i));
+        }
+        List<String> files = describeInputs(inputs);
+        for (int i = 0; i < files.size(); i++) {
+            manifest.setProperty("input." + i, files.get(i));
+        }
+
+        MessageDigest sha = sha256();
+        update(sha, stage);
+        update(sha, manifest.getProperty("code"));
+        for (String option : sorted) update(sha, "option:" + option);
+        for (String file : files) update(sha, "input:" + file);
+        fingerprint = StringUtils.byteToHexString(sha.digest());
+        manifest.setProperty("fingerprint", fingerprint);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Met la sortie en place si une exécution identique est connue, sinon supprime la sortie existante
+     * (comme avant le cache) pour laisser le job l'écrire.
+     *
+     * @return vrai si la sortie a été réutilisée (le job ne doit pas être relancé)
+     */
+    public boolean reuse() throws IOException {
+        FileSystem fs = output.getFileSystem(conf);
+        if (!force && fingerprint.equals(readFingerprint(fs, new Path(output, MANIFEST_FILE)))) {
+            System.out.println(">>> Sortie à jour réutilisée (empreinte " + shortFingerprint() + ") : " + output);
+            touchCacheEntry();
+            return true;
+        }
+
+        if (fs.exists(output)) {
+            System.out.println("Suppression du dossier existant : " + output);
+            fs.delete(output, true);
+        }
+
+        if (force || cacheDir == null) return false;
+        Path entry = new Path(cacheDir, fingerprint);
+        FileSystem cacheFs = entry.getFileSystem(conf);
+        if (!cacheFs.exists(new Path(entry, MANIFEST_FILE))) return false;
+
+        copyPreservingTimes(cacheFs, entry, fs, output);
+        touchCacheEntry();
+        System.out.println(">>> Sortie restaurée depuis le cache (empreinte " + shortFingerprint() + ") : " + entry);
+        return true;
+    }
+
+    /**
+     * Après un calcul réussi : écrit le _manifest, copie la sortie dans le cache et applique l'éviction LRU.
+     */
+    public void store() throws IOException {
+        FileSystem fs = output.getFileSystem(conf);
+        if (!fs.isDirectory(output)) return;
+        manifest.setProperty("created", String.valueOf(System.currentTimeMillis()));
+        writeManifest(fs, new Path(output, MANIFEST_FILE), manifest);
+        if (cacheDir == null) return;
+
+        FileSystem cacheFs = cacheDir.getFileSystem(conf);
+        long size = fs.getContentSummary(output).getLength();
+        if (size > maxBytes) {
+            System.out.println(">>> Sortie plus grande que le cache (" + (size >> 20) + " Mo), non mise en cache");
+            return;
+        }
+        Path entry = new Path(cacheDir, fingerprint);
+        cacheFs.delete(entry, true);
+        // Copie sous un nom temporaire : une entrée sans _manifest n'est jamais relue
+        Path tmp = new Path(cacheDir, "." + fingerprint + ".tmp");
+        cacheFs.delete(tmp, true);
+        copyPreservingTimes(fs, output, cacheFs, tmp);
+        cacheFs.rename(tmp, entry);
+        touchCacheEntry();
+        evict(cacheFs, entry);
+    }
+
+    /**
+     * Supprime les entrées les moins récemment utilisées jusqu'à repasser sous la taille maximale.
+     */
+    private void evict(FileSystem cacheFs, Path keep) throws IOException {
+        List<CacheEntry> entries = new ArrayList<>();
+        long total = 0;
+        for (FileStatus status : cacheFs.listStatus(cacheDir)) {
+            if (!status.isDirectory() || status.getPath().getName().startsWith(".")) continue;
+            Properties p = readManifest(cacheFs, new Path(status.getPath(), MANIFEST_FILE));
+            CacheEntry e = new CacheEntry(status.getPath(),
+                    Long.parseLong(p.getProperty("lastUsed", p.getProperty("created", "0"))),
+                    cacheFs.getContentSummary(status.getPath()).getLength());
+            total += e.size;
+            entries.add(e);
+        }
+        Collections.sort(entries, new Comparator<CacheEntry>() {
+            @Override
+            public int compare(CacheEntry a, CacheEntry b) {
+                return Long.compare(a.lastUsed, b.lastUsed);
+            }
+        });
+        for (CacheEntry e : entries) {
+            if (total <= maxBytes) break;
+            if (e.path.getName().equals(keep.getName())) continue;
+            cacheFs.delete(e.path, true);
+            total -= e.size;
+            System.out.println(">>> Cache : éviction de " + e.path.getName().substring(0, 12) + " (" + (e.size >> 20) + " Mo)");
+        }
+    }
+
+    /**
+     * Note l'utilisation de l'entrée du cache (les dates d'accès HDFS sont souvent désactivées).
+     */
+    private void touchCacheEntry() throws IOException {
+        if (cacheDir == null) return;
+        Path manifestPath = new Path(new Path(cacheDir, fingerprint), MANIFEST_FILE);
+        FileSystem cacheFs = manifestPath.getFileSystem(conf);
+        if (!cacheFs.exists(manifestPath)) return;
+        Properties p = readManifest(cacheFs, manifestPath);
+        p.setProperty("lastUsed", String.valueOf(System.currentTimeMillis()));
+        writeManifest(cacheFs, manifestPath, p);
+    }
+
+    private String shortFingerprint() {
+        return fingerprint.substring(0, 12);
+    }
+
+    /**
+     * Une ligne "chemin;taille;date;checksum" par fichier d'entrée, triées. Les motifs glob et les
+     * dossiers sont développés ; le _summary du dossier parent d'une entrée fichier est inclus car
+     * les étapes le relisent (nAll, mode canonique, échantillon).
+     */
+    private List<String> describeInputs(List<String> inputs) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String input : inputs) {
+            for (String pattern : InputFiles.split(input)) {
+                Path path = new Path(pattern);
+                FileSystem fs = path.getFileSystem(conf);
+                FileStatus[] matches = fs.globStatus(path);
+                if (matches == null || matches.length == 0) {
+                    files.add(fs.makeQualified(path) + ";absent");
+                    continue;
+                }
+                for (FileStatus status : matches) {
+                    describe(fs, status, files);
+                    if (!status.isDirectory()) {
+                        Path summary = new Path(status.getPath().getParent(), NodesAndEdges.SUMMARY_FILE);
+                        if (fs.exists(summary)) describe(fs, fs.getFileStatus(summary), files);
+                    }
+                }
+            }
+        }
+        Collections.sort(files);
+        // Un même fichier peut être atteint par deux motifs
+        List<String> unique = new ArrayList<>();
+        for (String file : files) {
+            if (unique.isEmpty() || !unique.get(unique.size() - 1).equals(file)) unique.add(file);
+        }
+        return unique;
+    }
+
+    private void describe(FileSystem fs, FileStatus status, List<String> files) throws IOException {
+        String name = status.getPath().getName();
+        if (name.startsWith(".") || name.equals("_SUCCESS") || name.equals(MANIFEST_FILE)) return;
+        if (status.isDirectory()) {
+            for (FileStatus child : fs.listStatus(status.getPath())) {
+                describe(fs, child, files);
+            }
+            return;
+        }
+        FileChecksum checksum = fs.getFileChecksum(status.getPath());
+        files.add(status.getPath() + ";" + status.getLen() + ";" + status.getModificationTime() + ";"
+                  + (checksum == null ? "-" : checksum.getAlgorithmName() + ":" + StringUtils.byteToHexString(checksum.getBytes())));
+    }
+
+    /**
+     * Version du code : jar (nom, taille, date) ou, en développement, les .class du dossier de classes.
+     */
+    static String codeVersion() {
+        try {
+            File source = new File(StageCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (source.isFile()) {
+                return source.getName() + ";" + source.length() + ";" + source.lastModified();
+            }
+            long latest = 0;
+            long count = 0;
+            File[] classes = source.listFiles();
+            if (classes != null) {
+                for (File f : classes) {
+                    if (!f.getName().endsWith(".class")) continue;
+                    latest = Math.max(latest, f.lastModified());
+                    count++;
+                }
+            }
+            return "classes;" + count + ";" + latest;
+        } catch (Exception e) {
+            return "inconnue";
+        }
+    }
+
+    private static void copyPreservingTimes(FileSystem srcFs, Path src, FileSystem dstFs, Path dst) throws IOException {
+        FileStatus status = srcFs.getFileStatus(src);
+        if (status.isDirectory()) {
+            dstFs.mkdirs(dst);
+            for (FileStatus child : srcFs.listStatus(src)) {
+                if (child.getPath().getName().endsWith(".crc")) continue;
+                copyPreservingTimes(srcFs, child.getPath(), dstFs, new Path(dst, child.getPath().getName()));
+            }
+            return;
+        }
+        FileUtil.copy(srcFs, src, dstFs, dst, false, true, srcFs.getConf());
+        dstFs.setTimes(dst, status.getModificationTime(), -1);
+    }
+
+    private static String readFingerprint(FileSystem fs, Path manifestPath) throws IOException {
+        if (!fs.exists(manifestPath)) return null;
+        return readManifest(fs, manifestPath).getProperty("fingerprint");
+    }
+
+    private static Properties readManifest(FileSystem fs, Path manifestPath) throws IOException {
+        Properties p = new Properties();
+        if (fs.exists(manifestPath)) {
+            try (InputStream in = fs.open(manifestPath)) {
+                p.load(in);
+            }
+        }
+        return p;
+    }
+
+    private static void writeManifest(FileSystem fs, Path manifestPath, Properties p) throws IOException {
+        try (OutputStream out = fs.create(manifestPath, true)) {
+            p.store(out, "Manifeste de sortie ProjetPLE");
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest sha, String s) {
+        sha.update(s.getBytes(StandardCharsets.UTF_8));
+        sha.update((byte) '\n');
+    }
+}
@@ -1,8 +1,16 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
@@ -13,13 +21,125 @@ import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 
 public class Stats {
 
+    // Jeu de données du graphique matchmaking (plot_matchmaking.py) : quelques Ko au lieu de toute la sortie
+    public static final String PLOT_FILE = "_plot.csv";
+    private static final String PLOT_PARTS = "_plot";
+    // Paires retenues pour la régression, comme le filtre historique du script Python
+    public static final double PLOT_MIN_PREVISION = 0.01;
+    // Histogramme 2-D en échelle log10 : 10 cases par décade sur chaque axe
+    public static final int PLOT_BINS_PER_DECADE = 10;
+
+    /**
+     * Régression count observé ~ prévision et histogramme 2-D (prévision, count) avec, par case, n, somme
+     * des prévisions et somme des counts. La régression garde n, les moyennes et les co-moments centrés
+     * (M2x, M2y, Cxy) : des sommes brutes Σy² de l'ordre de 1e19 perdraient toute précision. Les partiels
+     * des reducers sont fusionnés ligne à ligne par le driver (formule parallèle de Chan et al.).
+     *
+     * Format : T;total | R;n;moyenne_x;moyenne_y;m2x;m2y;cxy | B;case_prevision;case_count;n;sx;sy
+     */
+    static class PlotSummary {
+        long total;
+        long n;
+        double meanX, meanY, m2x, m2y, cxy;
+        final Map<String, double[]> bins = new TreeMap<>();
+
+        /**
+         * Ajoute une paire ; prevision est la valeur écrite dans la sortie (arrondie à 2 décimales),
+         * celle que filtrait le script Python.
+         */
+        void add(double prevision, long count) {
+            total++;
+            if (prevision <= PLOT_MIN_PREVISION) return;
+            double y = count;
+            combine(1, prevision, y, 0, 0, 0);
+            addBin(bin(prevision) + ";" + bin(Math.max(count, 1)), new double[]{1, prevision, y});
+        }
+
+        private void combine(long nb, double meanXb, double meanYb, double m2xb, double m2yb, double cxyb) {
+            if (nb == 0) return;
+            long na = n;
+            n += nb;
+            double dx = meanXb - meanX;
+            double dy = meanYb - meanY;
+            double weight = (double) na * nb / n;
+            meanX += dx * nb / n;
+            meanY += dy * nb / n;
+            m2x += m2xb + dx * dx * weight;
+            m2y += m2yb + dy * dy * weight;
+            cxy += cxyb + dx * dy * weight;
+        }
+
+        private static int bin(double v) {
+            return (int) Math.floor(Math.log10(v) * PLOT_BINS_PER_DECADE);
+        }
+
+        private void addBin(String cell, double[] sums) {
+            double[] current = bins.get(cell);
+            if (current == null) {
+                bins.put(cell, sums);
+            } else {
+                for (int i = 0; i < sums.length; i++) current[i] += sums[i];
+            }
+        }
+
+        /** Fusionne une ligne écrite par lines(). */
+        void merge(String line) {
+            String[] parts = line.split(";");
+            switch (parts[0]) {
+                case "T":
+                    total += Long.parseLong(parts[1]);
+                    break;
+                case "R":
+                    combine(Long.parseLong(parts[1]), Double.parseDouble(parts[2]), Double.parseDouble(parts[3]),
+                            Double.parseDouble(parts[4]), Double.parseDouble(parts[5]), Double.parseDouble(parts[6]));
+                    break;
+                case "B":
+                    addBin(parts[1] + ";" + parts[2], new double[]{Double.parseDouble(parts[3]),
+                            Double.parseDouble(parts[4]), Double.parseDouble(parts[5])});
+                    break;
+                default:
+            }
+        }
+
+        List<String> lines() {
+            List<String> lines = new ArrayList<>();
+            lines.add("T;" + total);
+            lines.add("R;" + n + ";" + meanX + ";" + meanY + ";" + m2x + ";" + m2y + ";" + cxy);
+            for (Map.Entry<String, double[]> e : bins.entrySet()) {
+                double[] v = e.getValue();
+                lines.add("B;" + e.getKey() + ";" + (long) v[0] + ";" + v[1] + ";" + v[2]);
+            }
+            return lines;
+        }
+
+        double slope() {
+            return cxy / m2x;
+        }
+
+        double intercept() {
+            return meanY - slope() * meanX;
+        }
+
+        double rSquared() {
+            return cxy * cxy / (m2x * m2y);
+        }
+    }
+
     // --- JOB 1 : JOINTURE SOURCE ---
     public static class Job1_JoinSource {
 
         public static class NodeMapper extends Mapper<Object, Text, Text, Text> {
+            private long minSupport;
+
+            @Override
+            protected void setup(Context context) {
+                minSupport = context.getConfiguration().getLong(NodesAndEdges.MIN_SUPPORT_KEY, 0);
+            }
+
             @Override
             protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
                 // reçoit : Archetype;Count;Win
@@ -30,6 +150,7 @@ public class Stats {
 
                 String archetype = parts[0].trim();
                 String count = parts[1].trim();
+                if (Long.parseLong(count) < minSupport) return;
                 
                 // Clé : Archetype | Valeur : NODE;Count
                 context.write(new Text(archetype), new Text("NODE;" + count));
@@ -37,6 +158,15 @@ public class Stats {
         }
 
         public static class EdgeMapper extends Mapper<Object, Text, Text, Text> {
+            private boolean canonicalEdges;
+            private long minSupport;
+
+            @Override
+            protected void setup(Context context) {
+                canonicalEdges = context.getConfiguration().getBoolean(NodesAndEdges.CANONICAL_EDGES_KEY, false);
+                minSupport = context.getConfiguration().getLong(NodesAndEdges.MIN_SUPPORT_KEY, 0);
+            }
+
             @Override
             protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
                 // reçoit : Source;Target;Count;Win
@@ -50,8 +180,18 @@ public class Stats {
                 String count = parts[2].trim();
                 String win = parts[3].trim();
 
+                // Élagage avant la jointure : les arêtes rares ne sont ni triées ni jointes
+                if (Long.parseLong(count) < minSupport) return;
+
                 // Clé : Source | Valeur : EDGE;Target;Count;Win
                 context.write(new Text(source), new Text("EDGE;" + target + ";" + count + ";" + win));
+
+                // Arête canonique (min;max) : on reconstruit la direction inverse à la volée
+                // wins(max -> min) = count - wins(min -> max)
+                if (canonicalEdges && !source.equals(target)) {
+                    long reverseWin = Long.parseLong(count) - Long.parseLong(win);
+                    context.write(new Text(target), new Text("EDGE;" + source + ";" + count + ";" + reverseWin));
+                }
             }
         }
 
@@ -86,6 +226,13 @@ public class Stats {
     public static class Job2_JoinTarget {
 
         public static class NodeMapper extends Mapper<Object, Text, Text, Text> {
+            private long minSupport;
+
+            @Override
+            protected void setup(Context context) {
+                minSupport = context.getConfiguration().getLong(NodesAndEdges.MIN_SUPPORT_KEY, 0);
+            }
+
             @Override
             protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
                 // reçoit : Archetype;Count;Win
@@ -95,6 +242,7 @@ public class Stats {
                 if (parts.length >= 2) {
                     String archetype = parts[0].trim();
                     String count = parts[1].trim();
+                    if (Long.parseLong(count) < minSupport) return;
                     context.write(new Text(archetype), new Text("NODE;" + count));
                 }
             }
@@ -118,12 +266,30 @@ public class Stats {
 
         public static class JoinReducer extends Reducer<Text, Text, Text, NullWritable> {
             long nAll = 1;
+            double sampleRate = 1.0;
+            boolean canonicalEdges;
+            private final PlotSummary plot = new PlotSummary();
+            private MultipleOutputs<Text, NullWritable> multipleOutputs;
 
             // récupère nAll pour calculer la prévision
             @Override
             protected void setup(Context context) {
                 nAll = context.getConfiguration().getLong("nAll", 1);
                 if (nAll == 0) nAll = 1;
+                sampleRate = context.getConfiguration().getDouble(Sampling.SAMPLE_RATE_KEY, 1.0);
+                canonicalEdges = context.getConfiguration().getBoolean(NodesAndEdges.CANONICAL_EDGES_KEY, false);
+                multipleOutputs = new MultipleOutputs<>(context);
+            }
+
+            /**
+             * Partiel du graphique de ce reducer dans _plot/part-r-*, fusionné par le driver.
+             */
+            @Override
+            protected void cleanup(Context context) throws IOException, InterruptedException {
+                for (String line : plot.lines()) {
+                    multipleOutputs.write(new Text(line), NullWritable.get(), PLOT_PARTS + "/part");
+                }
+                multipleOutputs.close();
             }
 
             @Override
@@ -151,11 +317,29 @@ public class Stats {
                         long win = Long.parseLong(parts[3]);
                         long countSource = Long.parseLong(parts[4]);
 
-                        double prevision = (double) (countSource * countTarget) / nAll;
+                        // --canonical : count de A;B = parties A-B dans les deux sens (A != B), soit environ deux
+                        // fois l'arête orientée. La prévision est doublée (nAll / 2) pour rester comparable.
+                        double pairAll = canonicalEdges && !source.equals(target) ? nAll / 2.0 : nAll;
+                        double prevision = countSource * countTarget / pairAll;
+                        String previsionText = String.format("%.2f", prevision).replace(',', '.');
+                        // Graphique : la prévision telle qu'écrite, comme la lisait le script Python
+                        plot.add(Double.parseDouble(previsionText), count);
 
                         // SORTIE FINALE
                         String out = source + ";" + target + ";" + count + ";" + win + ";" + 
-                                     countSource + ";" + countTarget + ";" + String.format("%.2f", prevision).replace(',', '.');
+                                     countSource + ";" + countTarget + ";" + previsionText;
+
+                        // Échantillon : intervalles à 95% calculés sur les observations réelles
+                        // ;winrate;winrate_bas;winrate_haut;prevision_basse;prevision_haute
+                        if (sampleRate < 1.0) {
+                            long rawCount = Sampling.unscale(count, sampleRate);
+                            double[] wr = Sampling.wilson(Sampling.unscale(win, sampleRate), rawCount, Sampling.Z_95);
+                            double[] prev = Sampling.previsionInterval(prevision,
+                                    Sampling.unscale(countSource, sampleRate), Sampling.unscale(countTarget, sampleRate),
+                                    Sampling.unscale(nAll, sampleRate), Sampling.Z_95);
+                            out += ";" + String.format("%.4f;%.4f;%.4f;%.2f;%.2f",
+                                    count > 0 ? (double) win / count : 0.0, wr[0], wr[1], prev[0], prev[1]).replace(',', '.');
+                        }
                         
                         context.write(new Text(out), NullWritable.get());
                     }
@@ -166,7 +350,37 @@ public class Stats {
 
     // --- Main job runner ---
     public static boolean runJob(String nodesPath, String edgesPath, String outputPath, long nAll) throws Exception {
+        return runJob(nodesPath, edgesPath, outputPath, nAll, false);
+    }
+
+    /**
+     * @param canonicalEdges vrai si les arêtes ont été générées avec --canonical (min;max),
+     *                       elles sont alors développées dans les deux directions au Job 1, avec
+     *                       le count des deux sens et une prévision calculée sur nAll / 2.
+     */
+    public static boolean runJob(String nodesPath, String edgesPath, String outputPath, long nAll,
+                                 boolean canonicalEdges) throws Exception {
+        return runJob(nodesPath, edgesPath, outputPath, nAll, canonicalEdges, 0);
+    }
+
+    /**
+     * @param minSupport les nœuds et arêtes de count inférieur sont ignorés dès les mappers
+     *                   (nAll doit être calculé avant élagage, cf. _summary de NodesAndEdges).
+     */
+    public static boolean runJob(String nodesPath, String edgesPath, String outputPath, long nAll,
+                                 boolean canonicalEdges, long minSupport) throws Exception {
+        return runJob(nodesPath, edgesPath, outputPath, nAll, canonicalEdges, minSupport, 1.0);
+    }
+
+    /**
+     * @param sampleRate taux d'échantillonnage des counts (cf. Sampling) : si < 1, chaque ligne reçoit
+     *                   le taux de victoire et les intervalles de confiance du taux et de la prévision.
+     */
+    public static boolean runJob(String nodesPath, String edgesPath, String outputPath, long nAll,
+                                 boolean canonicalEdges, long minSupport, double sampleRate) throws Exception {
         Configuration conf = new Configuration();
+        conf.setBoolean(NodesAndEdges.CANONICAL_EDGES_KEY, canonicalEdges);
+        conf.setLong(NodesAndEdges.MIN_SUPPORT_KEY, minSupport);
         
         Path outPath = new Path(outputPath);
         String safeOutputName = outPath.getName();
@@ -201,6 +415,9 @@ public class Stats {
         
         Configuration conf2 = new Configuration();
         conf2.setLong("nAll", nAll);
+        conf2.setLong(NodesAndEdges.MIN_SUPPORT_KEY, minSupport);
+        conf2.setBoolean(NodesAndEdges.CANONICAL_EDGES_KEY, canonicalEdges);
+        conf2.setDouble(Sampling.SAMPLE_RATE_KEY, sampleRate);
         Job job2 = Job.getInstance(conf2, "Stats - Join Target");
         job2.setJarByClass(Stats.class);
         
@@ -220,9 +437,44 @@ public class Stats {
         
         if (success) {
             fs.delete(tempPath, true);
+            PlotSummary plot = mergePlot(outPath, conf2);
+            System.out.println(">>> Graphique matchmaking : " + new Path(outPath, PLOT_FILE) + " (" + plot.bins.size()
+                    + " cases, " + plot.n + "/" + plot.total + " paires avec prévision > " + PLOT_MIN_PREVISION + ")");
+            if (plot.n >= 2) {
+                System.out.println(String.format("    Pente %.4f / intercept %.4f / R² %.4f", plot.slope(), plot.intercept(),
+                        plot.rSquared()).replace(',', '.'));
+            }
             System.out.println(">>> TERMINÉ ! Vérifie le fichier dans : " + outputPath + "/part-r-00000");
         }
         
         return success;
     }
-}
\ No newline at end of file
+
+    /**
+     * Fusionne les partiels _plot/part-r-* des reducers dans PLOT_FILE et supprime le dossier des partiels.
+     */
+    static PlotSummary mergePlot(Path outPath, Configuration conf) throws IOException {
+        FileSystem fs = outPath.getFileSystem(conf);
+        Path partsDir = new Path(outPath, PLOT_PARTS);
+        PlotSummary plot = new PlotSummary();
+        FileStatus[] parts = fs.globStatus(new Path(partsDir, "part-r-*"));
+        if (parts != null) {
+            for (FileStatus part : parts) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(part.getPath()), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isEmpty()) plot.merge(line.trim());
+                    }
+                }
+            }
+        }
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fs.create(new Path(outPath, PLOT_FILE), true), StandardCharsets.UTF_8))) {
+            for (String line : plot.lines()) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+        fs.delete(partsDir, true);
+        return plot;
+    }
+}
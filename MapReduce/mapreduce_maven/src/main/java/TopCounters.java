@@ -0,0 +1,260 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.partition.HashPartitioner;
+
+/**
+ * Index des meilleurs contres : pour chaque archétype X, les K adversaires qui le battent le plus,
+ * classés par taux de victoire lissé (prior bayésien centré sur 50%) avec un nombre minimal de parties.
+ *
+ * Entrée : sortie de Stats ou arêtes de NodesAndEdges (source;target;count;wins;...).
+ * Sortie : MapFile (clé = X, valeur = "source:taux:count:wins|..."), interrogeable en une seule
+ * recherche dichotomique au lieu de parcourir toutes les arêtes.
+ */
+public class TopCounters {
+
+    public static final String TOP_K_KEY = "topk.k";
+    public static final int DEFAULT_TOP_K = 10;
+    public static final String MIN_COUNT_KEY = "topk.min.count";
+    public static final long DEFAULT_MIN_COUNT = 10;
+    // Nombre de parties fictives à 50% ajoutées pour lisser les petits échantillons
+    public static final String PRIOR_GAMES_KEY = "topk.prior.games";
+    public static final double DEFAULT_PRIOR_GAMES = 10;
+
+    // --- COMPTEURS PERSONNALISÉS ---
+    public enum Counters {
+        EDGES_READ, EDGES_BELOW_MIN_COUNT, ARCHETYPES_INDEXED
+    }
+
+    /**
+     * Adversaire candidat, trié par taux lissé puis par nombre de parties.
+     */
+    static class Candidate implements Comparable<Candidate> {
+        final String source;
+        final long count;
+        final long wins;
+        final double score;
+
+        Candidate(String source, long count, long wins, double priorGames) {
+            this.source = source;
+            this.count = count;
+            this.wins = wins;
+            this.score = (wins + priorGames / 2) / (count + priorGames);
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int c = Double.compare(score, other.score);
+            if (c != 0) return c;
+            c = Long.compare(count, other.count);
+            return c != 0 ? c : other.source.compareTo(source);
+        }
+    }
+
+    // --- MAPPER ---
+    public static class CounterMapper extends Mapper<Object, Text, Text, Text> {
+        private long minCount;
+        private boolean canonicalEdges;
+
+        @Override
+        protected void setup(Context context) {
+            minCount = context.getConfiguration().getLong(MIN_COUNT_KEY, DEFAULT_MIN_COUNT);
+            canonicalEdges = context.getConfiguration().getBoolean(NodesAndEdges.CANONICAL_EDGES_KEY, false);
+        }
+
+        @Override
+        protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            // reçoit : Source;Target;Count;Win[;...]
+            String[] parts = value.toString().trim().split(";");
+            if (parts.length < 4) return;
+
+            String source = parts[0].trim();
+            String target = parts[1].trim();
+            long count = Long.parseLong(parts[2].trim());
+            long win = Long.parseLong(parts[3].trim());
+            context.getCounter(Counters.EDGES_READ).increment(1);
+
+            if (count < minCount) {
+                context.getCounter(Counters.EDGES_BELOW_MIN_COUNT).increment(1);
+                return;
+            }
+
+            // Clé : la cible X | Valeur : un adversaire qui l'affronte
+            context.write(new Text(target), new Text(source + ";" + count + ";" + win));
+
+            // Arête canonique : la cible bat aussi la source count - win fois
+            if (canonicalEdges && !source.equals(target)) {
+                context.write(new Text(source), new Text(target + ";" + count + ";" + (count - win)));
+            }
+        }
+    }
+
+    /**
+     * Garde les K meilleurs candidats d'une liste de valeurs "source;count;wins" (tas min borné).
+     */
+    static List<Candidate> topK(Iterable<Text> values, int k, double priorGames) {
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(k + 1);
+        for (Text val : values) {
+            String[] parts = val.toString().split(";");
+            Candidate candidate = new Candidate(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), priorGames);
+            if (heap.size() < k) {
+                heap.add(candidate);
+            } else if (candidate.compareTo(heap.peek()) > 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+        List<Candidate> best = new ArrayList<>(heap);
+        Collections.sort(best, Collections.reverseOrder());
+        return best;
+    }
+
+    // --- COMBINER ---
+    public static class TopKCombiner extends Reducer<Text, Text, Text, Text> {
+        /* Le top-K de l'union est inclus dans l'union des top-K partiels :
+         * chaque mapper n'envoie que ses K meilleurs candidats par archétype.
+         */
+        private int k;
+        private double priorGames;
+
+        @Override
+        protected void setup(Context context) {
+            k = context.getConfiguration().getInt(TOP_K_KEY, DEFAULT_TOP_K);
+            priorGames = context.getConfiguration().getDouble(PRIOR_GAMES_KEY, DEFAULT_PRIOR_GAMES);
+        }
+
+        @Override
+        protected void reduce(Text key, Iterable<Text> values, Context context) throws IOException, InterruptedException {
+            for (Candidate c : topK(values, k, priorGames)) {
+                context.write(key, new Text(c.source + ";" + c.count + ";" + c.wins));
+            }
+        }
+    }
+
+    // --- REDUCER ---
+    public static class TopKReducer extends Reducer<Text, Text, Text, Text> {
+        private int k;
+        private double priorGames;
+
+        @Override
+        protected void setup(Context context) {
+            k = context.getConfiguration().getInt(TOP_K_KEY, DEFAULT_TOP_K);
+            priorGames = context.getConfiguration().getDouble(PRIOR_GAMES_KEY, DEFAULT_PRIOR_GAMES);
+        }
+
+        @Override
+        protected void reduce(Text key, Iterable<Text> values, Context context) throws IOException, InterruptedException {
+            StringBuilder sb = new StringBuilder();
+            for (Candidate c : topK(values, k, priorGames)) {
+                if (sb.length() > 0) sb.append('|');
+                sb.append(c.source).append(':')
+                  .append(String.format("%.4f", c.score).replace(',', '.')).append(':')
+                  .append(c.count).append(':').append(c.wins);
+            }
+            // Clés triées par le shuffle : format MapFile respecté
+            context.write(key, new Text(sb.toString()));
+            context.getCounter(Counters.ARCHETYPES_INDEXED).increment(1);
+        }
+    }
+
+    // --- Main job runner ---
+    public static boolean runJob(String inputPath, String outputPath, int k, long minCount) throws Exception {
+        Configuration conf = new Configuration();
+        conf.setInt(TOP_K_KEY, k);
+        conf.setLong(MIN_COUNT_KEY, minCount);
+        // Arêtes canoniques lues directement : on reconstruit la direction inverse
+        boolean canonical = Boolean.parseBoolean(
+                NodesAndEdges.readSummary(new Path(inputPath), conf).getProperty("canonical", "false"));
+        conf.setBoolean(NodesAndEdges.CANONICAL_EDGES_KEY, canonical);
+
+        Job job = Job.getInstance(conf, "PLE Clash Royale - Top " + k + " counters");
+        job.setJarByClass(TopCounters.class);
+        job.setMapperClass(CounterMapper.class);
+        job.setCombinerClass(TopKCombiner.class);
+        job.setReducerClass(TopKReducer.class);
+
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(Text.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(Text.class);
+
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(MapFileOutputFormat.class);
+
+        FileInputFormat.addInputPath(job, new Path(inputPath));
+        FileOutputFormat.setOutputPath(job, new Path(outputPath));
+
+        boolean success = job.waitForCompletion(true);
+
+        if (success) {
+            org.apache.hadoop.mapreduce.Counters c = job.getCounters();
+            System.out.println("\n-------------------------------------------");
+            System.out.println("  RAPPORT TOP COUNTERS");
+            System.out.println("-------------------------------------------");
+            System.out.println("  K / min parties      : " + k + " / " + minCount);
+            System.out.println("  Arêtes lues          : " + c.findCounter(Counters.EDGES_READ).getValue());
+            System.out.println("  Sous le minimum      : " + c.findCounter(Counters.EDGES_BELOW_MIN_COUNT).getValue());
+            System.out.println("  Archétypes indexés   : " + c.findCounter(Counters.ARCHETYPES_INDEXED).getValue());
+            System.out.println("-------------------------------------------\n");
+        }
+
+        return success;
+    }
+
+    /**
+     * Recherche les meilleurs contres d'un archétype dans l'index (une seule lecture de MapFile).
+     * Retourne null si l'archétype n'est pas indexé.
+     */
+    public static String lookup(String indexPath, String archetype) throws IOException {
+        MapFile.Reader[] readers = openReaders(new Path(indexPath), new Configuration());
+        try {
+            Text value = new Text();
+            if (MapFileOutputFormat.getEntry(readers, new HashPartitioner<Text, Text>(), new Text(archetype), value) == null) {
+                return null;
+            }
+            return value.toString();
+        } finally {
+            closeReaders(readers);
+        }
+    }
+
+    /**
+     * Ouvre les MapFile d'un index écrit par MapFileOutputFormat, dans l'ordre des partitions.
+     */
+    static MapFile.Reader[] openReaders(Path dir, Configuration conf) throws IOException {
+        // MapFileOutputFormat.getReaders() liste aussi _SUCCESS : on ne garde que les part-r-*
+        // (triés, l'indice du reader doit correspondre à la partition)
+        FileStatus[] parts = dir.getFileSystem(conf).globStatus(new Path(dir, "part-r-*"));
+        if (parts == null || parts.length == 0) {
+            throw new IOException("Index vide ou introuvable : " + dir);
+        }
+        Arrays.sort(parts);
+        MapFile.Reader[] readers = new MapFile.Reader[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            readers[i] = new MapFile.Reader(parts[i].getPath(), conf);
+        }
+        return readers;
+    }
+
+    static void closeReaders(MapFile.Reader[] readers) throws IOException {
+        for (MapFile.Reader reader : readers) {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Générateur de parties Clash Royale synthétiques, au format exact des lignes brutes (Game/Player).
+ *
+ * - popularité des decks en loi de Zipf sur un pool de decks, cartes tirées selon une Zipf réglable
+ * - joueurs tirés dans un pool, trophées stables par joueur
+ * - injection de doublons exacts, de doublons décalés de quelques secondes (joueurs éventuellement
+ *   inversés, comme les vrais doublons) et de lignes JSON invalides, à des taux configurables
+ *
+ * Entièrement déterministe pour une graine donnée, ce qui permet de comparer des sommes de contrôle.
+ */
+public class WorkloadGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String[] MODES = {"Ranked1v1_NewArena2", "Ranked1v1_NewArena", "Ladder"};
+
+    // Paramètres (valeurs par défaut réalistes pour le dataset de référence)
+    long lines = 100000;
+    long seed = 42;
+    int cards = 120;              // cartes distinctes (8 à 256)
+    double cardSkew = 0.8;        // exposant Zipf de la popularité des cartes
+    int decks = 20000;            // taille du pool de decks
+    double deckSkew = 1.1;        // exposant Zipf de la popularité des decks
+    int players = 0;              // 0 = lines / 5
+    double duplicateRate = 0.005; // doublon exact de la ligne précédente
+    double nearDuplicateRate = 0.005; // même partie 1 à 9 s plus tard
+    double malformedRate = 0.001; // JSON tronqué ou invalide
+    int days = 14;                // période couverte
+    long startMillis = 1762300800000L; // 2025-11-05T00:00:00Z
+
+    // Résultat de la dernière génération
+    long gamesWritten;
+    long duplicatesWritten;
+    long nearDuplicatesWritten;
+    long malformedWritten;
+
+    private Random random;
+    private double[] deckCdf;
+    private String[] deckPool;
+    private int[] playerTrophies;
+
+    /**
+     * Écrit exactement `lines` lignes dans le fichier de sortie (local ou HDFS).
+     */
+    public void generate(String output, Configuration conf) throws IOException {
+        random = new Random(seed);
+        if (players <= 0) players = (int) Math.max(100, lines / 5);
+        buildDeckPool();
+        buildPlayers();
+
+        gamesWritten = duplicatesWritten = nearDuplicatesWritten = malformedWritten = 0;
+        long spanMillis = days * 86400000L;
+        String previous = null;
+        long previousTime = 0;
+        StringBuilder sb = new StringBuilder(512);
+
+        Path path = new Path(output);
+        FileSystem fs = path.getFileSystem(conf);
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(fs.create(path, true), StandardCharsets.UTF_8), 1 << 16)) {
+            for (long i = 0; i < lines; i++) {
+                double r = random.nextDouble();
+                String line;
+                if (previous != null && r < duplicateRate) {
+                    line = previous;
+                    duplicatesWritten++;
+                } else if (previous != null && r < duplicateRate + nearDuplicateRate) {
+                    line = shiftedCopy(previous, previousTime);
+                    nearDuplicatesWritten++;
+                } else if (r < duplicateRate + nearDuplicateRate + malformedRate) {
+                    line = malformed(previous);
+                    malformedWritten++;
+                } else {
+                    // Temps croissant avec un peu de bruit : les lignes brutes ne sont pas triées
+                    previousTime = startMillis + (long) ((double) i / lines * spanMillis) + random.nextInt(60000);
+                    line = game(sb, previousTime);
+                    previous = line;
+                    gamesWritten++;
+                }
+                out.write(line);
+                out.write('\n');
+            }
+        }
+    }
+
+    private void buildDeckPool() {
+        double[] cardCdf = zipfCdf(cards, cardSkew);
+        // Les identifiants de cartes sont répartis sur 0..255 comme les vrais (non contigus)
+        int[] cardIds = new int[cards];
+        int[] all = new int[256];
+        for (int i = 0; i < 256; i++) all[i] = i;
+        for (int i = 0; i < cards; i++) {
+            int j = i + random.nextInt(256 - i);
+            int tmp = all[i]; all[i] = all[j]; all[j] = tmp;
+            cardIds[i] = all[i];
+        }
+
+        deckPool = new String[decks];
+        char[] deck = new char[16];
+        for (int d = 0; d < decks; d++) {
+            boolean[] used = new boolean[cards];
+            for (int c = 0; c < 8; c++) {
+                int card;
+                do {
+                    card = sample(cardCdf);
+                } while (used[card]);
+                used[card] = true;
+                deck[c * 2] = HEX[cardIds[card] >> 4];
+                deck[c * 2 + 1] = HEX[cardIds[card] & 0xf];
+            }
+            deckPool[d] = new String(deck);
+        }
+        deckCdf = zipfCdf(decks, deckSkew);
+    }
+
+    private void buildPlayers() {
+        playerTrophies = new int[players];
+        for (int p = 0; p < players; p++) {
+            int trophies = (int) Math.round(7000 + 1200 * random.nextGaussian());
+            playerTrophies[p] = Math.max(4000, Math.min(10000, trophies));
+        }
+    }
+
+    private String game(StringBuilder sb, long timeMillis) {
+        int a = random.nextInt(players);
+        int b;
+        do {
+            b = random.nextInt(players);
+        } while (b == a);
+
+        sb.setLength(0);
+        sb.append("{\"date\":\"").append(isoDate(timeMillis)).append("\",\"game\":\"pathOfLegend\",\"mode\":\"")
+          .append(MODES[random.nextInt(MODES.length)]).append("\",\"round\":0,\"type\":\"pathOfLegend\",\"winner\":")
+          .append(random.nextInt(2)).append(",\"players\":[");
+        player(sb, a);
+        sb.append(',');
+        player(sb, b);
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private void player(StringBuilder sb, int id) {
+        String deck = deckPool[sample(deckCdf)];
+        int trophies = playerTrophies[id];
+        sb.append("{\"utag\":\"#P").append(Integer.toString(id, 36).toUpperCase())
+          .append("\",\"ctag\":\"#C").append(Integer.toString(id % 997, 36).toUpperCase())
+          .append("\",\"trophies\":").append(trophies)
+          .append(",\"exp\":").append(40 + id % 30)
+          .append(",\"league\":").append(Math.min(10, trophies / 1000))
+          .append(",\"bestleague\":").append(Math.min(10, trophies / 1000 + 1))
+          .append(",\"deck\":\"").append(deck)
+          .append("\",\"evo\":\"").append(deck, 0, 4)
+          .append("\",\"tower\":\"6e\",\"strength\":").append(14 + random.nextInt(8) / 4.0)
+          .append(",\"crown\":").append(random.nextInt(4))
+          .append(",\"elixir\":").append(random.nextInt(1000) / 100.0)
+          .append(",\"touch\":1,\"score\":0}");
+    }
+
+    /**
+     * Même partie enregistrée 1 à 9 s plus tard, avec une chance sur deux d'avoir les joueurs inversés.
+     */
+    private String shiftedCopy(String line, long timeMillis) {
+        String shifted = line.replace(isoDate(timeMillis), isoDate(timeMillis + 1000 + random.nextInt(9000)));
+        if (random.nextBoolean()) {
+            int start = shifted.indexOf("\"players\":[") + 11;
+            int split = shifted.indexOf("},{", start) + 1;
+            String p0 = shifted.substring(start, split);
+            String p1 = shifted.substring(split + 1, shifted.length() - 2);
+            int winnerPos = shifted.indexOf("\"winner\":") + 9;
+            char winner = shifted.charAt(winnerPos) == '0' ? '1' : '0';
+            shifted = shifted.substring(0, winnerPos) + winner + shifted.substring(winnerPos + 1, start)
+                      + p1 + "," + p0 + "]}";
+        }
+        return shifted;
+    }
+
+    private String malformed(String previous) {
+        if (previous == null || random.nextBoolean()) {
+            return "{\"date\":\"" + isoDate(startMillis) + "\",\"game\":";
+        }
+        return previous.substring(0, 1 + random.nextInt(previous.length() - 1));
+    }
+
+    private static String isoDate(long millis) {
+        java.time.Instant instant = java.time.Instant.ofEpochMilli(millis - millis % 1000);
+        return instant.toString();
+    }
+
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+        return cdf;
+    }
+
+    private int sample(double[] cdf) {
+        int pos = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(cdf.length - 1, pos >= 0 ? pos : -pos - 1);
+    }
+
+    /**
+     * Lit les options --lines=, --seed=, --cards=, --card-skew=, --decks=, --deck-skew=, --players=,
+     * --dup-rate=, --near-dup-rate=, --malformed-rate=, --days=.
+     */
+    public static WorkloadGenerator fromArgs(String[] args, int from) {
+        WorkloadGenerator g = new WorkloadGenerator();
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i];
+            int eq = arg.indexOf('=');
+            if (eq < 0) continue;
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+                case "--lines": g.lines = Long.parseLong(value); break;
+                case "--seed": g.seed = Long.parseLong(value); break;
+                case "--cards": g.cards = Integer.parseInt(value); break;
+                case "--card-skew": g.cardSkew = Double.parseDouble(value); break;
+                case "--decks": g.decks = Integer.parseInt(value); break;
+                case "--deck-skew": g.deckSkew = Double.parseDouble(value); break;
+                case "--players": g.players = Integer.parseInt(value); break;
+                case "--dup-rate": g.duplicateRate = Double.parseDouble(value); break;
+                case "--near-dup-rate": g.nearDuplicateRate = Double.parseDouble(value); break;
+                case "--malformed-rate": g.malformedRate = Double.parseDouble(value); break;
+                case "--days": g.days = Integer.parseInt(value); break;
+                default: break;
+            }
+        }
+        // Un deck tire 8 cartes distinctes : en dessous, buildDeckPool ne termine pas
+        if (g.cards < CardDictionary.MAX_CARDS || g.cards > CardDictionary.CARD_COUNT) {
+            throw new IllegalArgumentException("--cards doit être entre " + CardDictionary.MAX_CARDS + " et "
+                    + CardDictionary.CARD_COUNT + " (reçu " + g.cards + ")");
+        }
+        // Une partie oppose deux joueurs distincts : avec un seul, game() tire l'adversaire indéfiniment
+        if (g.players == 1) {
+            throw new IllegalArgumentException("--players doit être >= 2, ou 0 pour lines / 5 (reçu 1)");
+        }
+        return g;
+    }
+
+    /**
+     * Tous les paramètres qui déterminent le fichier généré : deux générations de même description
+     * produisent les mêmes lignes (référence du benchmark).
+     */
+    public String describe() {
+        return "lines=" + lines + ";seed=" + seed + ";cards=" + cards + ";cardSkew=" + cardSkew + ";decks=" + decks
+                + ";deckSkew=" + deckSkew + ";players=" + (players > 0 ? players : Math.max(100, lines / 5))
+                + ";dupRate=" + duplicateRate + ";nearDupRate=" + nearDuplicateRate + ";malformedRate=" + malformedRate
+                + ";days=" + days + ";start=" + startMillis;
+    }
+
+    public void printReport() {
+        System.out.println("\n-------------------------------------------");
+        System.out.println("  RAPPORT GÉNÉRATION");
+        System.out.println("-------------------------------------------");
+        System.out.println("  Lignes écrites       : " + lines + " (graine " + seed + ")");
+        System.out.println("  Parties uniques      : " + gamesWritten);
+        System.out.println("  Doublons exacts      : " + duplicatesWritten);
+        System.out.println("  Doublons décalés     : " + nearDuplicatesWritten);
+        System.out.println("  Lignes invalides     : " + malformedWritten);
+        System.out.println("  Cartes / decks       : " + cards + " (zipf " + cardSkew + ") / " + decks + " (zipf " + deckSkew + ")");
+        System.out.println("-------------------------------------------\n");
+    }
+}
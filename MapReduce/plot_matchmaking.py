@@ -6,22 +6,56 @@ import os
 import sys
 
 FILE_NAME = "result_hdfs/output_stats/part-r-00000"
+# Résumé calculé par le job stats (quelques Ko) : histogramme 2-D + moments de la régression
+PLOT_FILE = "result_hdfs/output_stats/_plot.csv"
+
+
+def charger_resume(path):
+    """Lit _plot.csv : T;total | R;n;moyenne_x;moyenne_y;m2x;m2y;cxy | B;case_prev;case_count;n;sx;sy"""
+    total = 0
+    reg = None
+    bins = []
+    with open(path) as f:
+        for line in f:
+            parts = line.strip().split(";")
+            if parts[0] == "T":
+                total = int(parts[1])
+            elif parts[0] == "R":
+                reg = [float(v) for v in parts[1:7]]
+            elif parts[0] == "B":
+                bins.append([float(v) for v in parts[3:6]])
+    return total, reg, np.array(bins).reshape(-1, 3)
+
+
+def regression_resume(reg):
+    # Co-moments centrés (M2x = somme des (x - moyenne_x)², Cxy = somme des produits des écarts)
+    n, mean_x, mean_y, m2x, m2y, cxy = reg
+    slope = cxy / m2x
+    intercept = mean_y - slope * mean_x
+    r_squared = cxy * cxy / (m2x * m2y)
+    return slope, intercept, r_squared
+
 
 def analyser_resultats():
     print("==========================================")
     print("   ANALYSE MATCHMAKING CLASH ROYALE")
     print("==========================================")
 
+    if os.path.exists(PLOT_FILE):
+        analyser_resume()
+        return
+
     if not os.path.exists(FILE_NAME):
         print(f"ERREUR : Le fichier '{FILE_NAME}' est introuvable.")
-        print("Assure-toi de l'avoir récupéré depuis Hadoop :")
-        print(f"  hadoop fs -get ./output_stats/{FILE_NAME} .")
+        print("Assure-toi de l'avoir récupéré depuis Hadoop (le résumé suffit) :")
+        print("  hadoop fs -get ./output_stats/_plot.csv result_hdfs/output_stats/")
         return
 
     print(f">>> Chargement de '{FILE_NAME}'...")
     
     try:
-        df = pd.read_csv(FILE_NAME, sep=";", header=None, 
+        # usecols : les sorties échantillonnées (--sample) ont 5 colonnes d'intervalles en plus
+        df = pd.read_csv(FILE_NAME, sep=";", header=None, usecols=range(7),
                          names=["Source", "Target", "CountObs", "Win", 
                                 "CountSource", "CountTarget", "Prevision"])
     except Exception as e:
@@ -47,6 +81,48 @@ def analyser_resultats():
     slope, intercept, r_value, p_value, std_err = stats.linregress(x, y)
     r_squared = r_value ** 2
 
+    afficher_resultats(slope, intercept, r_squared)
+
+    print("\n>>> Génération du graphique...")
+    plt.figure(figsize=(10, 7))
+
+    plt.scatter(x, y, alpha=0.4, s=15, color='blue', label='Paires de Decks')
+
+    max_val = max(x.max(), y.max())
+    tracer(x, slope, intercept, r_squared, max_val)
+
+
+def analyser_resume():
+    print(f">>> Chargement du résumé '{PLOT_FILE}'...")
+    total, reg, bins = charger_resume(PLOT_FILE)
+    print(f"  - Total paires : {total}")
+    useful_lines = int(reg[0]) if reg else 0
+    print(f"  - Paires exploitables (Prevision > 0.01) : {useful_lines} dans {len(bins)} cases")
+
+    if useful_lines < 2:
+        print("\nERREUR : Pas assez de données significatives pour tracer le graphique.")
+        print("Conseil : Vérifie que ton dataset contient des decks populaires.")
+        return
+
+    slope, intercept, r_squared = regression_resume(reg)
+    afficher_resultats(slope, intercept, r_squared)
+
+    print("\n>>> Génération du graphique...")
+    plt.figure(figsize=(10, 7))
+
+    # Un point par case de l'histogramme (log10, 10 cases par décade), au barycentre de ses paires
+    n = bins[:, 0]
+    x = bins[:, 1] / n
+    y = bins[:, 2] / n
+    sc = plt.scatter(x, y, s=10 + 20 * np.log10(n), c=np.log10(n), cmap='Blues', alpha=0.8,
+                     edgecolors='grey', linewidths=0.3, label='Paires de Decks (cases)')
+    plt.colorbar(sc, label='log10(nombre de paires)')
+
+    max_val = max(x.max(), y.max())
+    tracer(np.array([x.min(), x.max()]), slope, intercept, r_squared, max_val)
+
+
+def afficher_resultats(slope, intercept, r_squared):
     print("\n>>> RÉSULTATS STATISTIQUES")
     print(f"  - Pente (Slope) : {slope:.4f}")
     print(f"  - R²            : {r_squared:.4f}")
@@ -61,12 +137,8 @@ def analyser_resultats():
     else:
         print(f"  [SUSPECT] La pente ({slope:.2f}) s'éloigne de 1. Il y a un biais (Attraction ou Évitement).")
 
-    print("\n>>> Génération du graphique...")
-    plt.figure(figsize=(10, 7))
 
-    plt.scatter(x, y, alpha=0.4, s=15, color='blue', label='Paires de Decks')
-
-    max_val = max(x.max(), y.max())
+def tracer(x, slope, intercept, r_squared, max_val):
     plt.plot([0, max_val], [0, max_val], color='red', linestyle='--', linewidth=2, label='Idéal Théorique (y=x)')
 
     plt.plot(x, slope*x + intercept, color='green', linewidth=2, label=f'Réalité (Pente={slope:.3f})')